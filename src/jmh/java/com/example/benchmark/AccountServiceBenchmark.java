@@ -0,0 +1,55 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.util.concurrent.TimeUnit;
+
+import com.example.entity.Account;
+import com.example.exception.AccountDoesNotExistException;
+import com.example.exception.HashingUnavailableException;
+import com.example.service.AccountService;
+
+/**
+ * AccountService.verifyLogin for an account registered through AccountService, so its password is stored as a
+ * hash with the configured cost and the benchmark includes verifying it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AccountServiceBenchmark {
+    private ConfigurableApplicationContext app;
+    private AccountService accountService;
+    private Account login;
+
+    @Setup
+    public void setUp() throws Exception {
+        app = BenchmarkApplication.start();
+        accountService = app.getBean(AccountService.class);
+        login = new Account("benchmark", "benchmark-password");
+        accountService.registerAccount(login);
+    }
+
+    @TearDown
+    public void tearDown(){
+        SpringApplication.exit(app);
+    }
+
+    @Benchmark
+    public Account verifyLogin() throws AccountDoesNotExistException, HashingUnavailableException {
+        return accountService.verifyLogin(login);
+    }
+}
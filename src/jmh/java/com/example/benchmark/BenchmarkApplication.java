@@ -0,0 +1,84 @@
+package com.example.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.SocialMediaApp;
+import com.example.cache.AccountIdIndex;
+import com.example.cache.UsernameFilter;
+import com.example.entity.Message;
+import com.example.service.MessageService;
+
+/**
+ * Starts the application without a web server against its own in-memory database, seeded with a fixed number of
+ * accounts and messages, so that benchmarks can call its services directly.
+ */
+final class BenchmarkApplication {
+    static final int ACCOUNTS = 1000;
+    static final int MESSAGES_PER_ACCOUNT = 20;
+    /**
+     * Seeded account ids start well above the values the id sequence hands out during a run.
+     */
+    static final long FIRST_ACCOUNT_ID = 1_000_000;
+
+    private BenchmarkApplication(){
+    }
+
+    static ConfigurableApplicationContext start(){
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(SocialMediaApp.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=warn");
+        seed(app);
+        return app;
+    }
+
+    /**
+     * Accounts are inserted directly; messages go through MessageService so the caches and indexes see them.
+     */
+    private static void seed(ConfigurableApplicationContext app){
+        JdbcTemplate jdbcTemplate = app.getBean(JdbcTemplate.class);
+        List<Object[]> accounts = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++){
+            accounts.add(new Object[] {FIRST_ACCOUNT_ID + i, "user" + i, "password"});
+        }
+        jdbcTemplate.batchUpdate("insert into account (accountId, username, password) values (?, ?, ?)", accounts);
+        app.getBean(AccountIdIndex.class).load();
+        app.getBean(UsernameFilter.class).rebuild();
+
+        // data.sql inserts messages with fixed ids just below 10000, which a fresh sequence would run into
+        jdbcTemplate.execute("alter sequence hibernate_sequence restart with 10000");
+        MessageService messageService = app.getBean(MessageService.class);
+        List<Message> batch = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS * MESSAGES_PER_ACCOUNT; i++){
+            batch.add(new Message(FIRST_ACCOUNT_ID + i % ACCOUNTS, "benchmark message number " + i, 1669947792L + i));
+            if (batch.size() == 1000){
+                postAll(messageService, batch);
+            }
+        }
+        postAll(messageService, batch);
+    }
+
+    private static void postAll(MessageService messageService, List<Message> batch){
+        try{
+            messageService.postMessages(batch);
+        }
+        catch(Exception e){
+            throw new IllegalStateException("Seeding failed.", e);
+        }
+        batch.clear();
+    }
+
+    /**
+     * @return ids of every message in the database
+     */
+    static long[] messageIds(ConfigurableApplicationContext app){
+        return app.getBean(JdbcTemplate.class).queryForList("select messageId from message", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Jackson reading and writing of message lists of different sizes, with the ObjectMapper defaults Spring MVC
+ * uses for responses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MessageSerializationBenchmark {
+    private static final TypeReference<List<Message>> MESSAGE_LIST = new TypeReference<List<Message>>(){};
+
+    @Param({"1", "50", "500", "5000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Message> messages;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        messages = new ArrayList<>(size);
+        for (int i = 0; i < size; i++){
+            messages.add(new Message((long) i, 9999L, "benchmark message number " + i, 1669947792L + i));
+        }
+        json = objectMapper.writeValueAsBytes(messages);
+    }
+
+    @Benchmark
+    public byte[] writeMessages() throws IOException {
+        return objectMapper.writeValueAsBytes(messages);
+    }
+
+    @Benchmark
+    public List<Message> readMessages() throws IOException {
+        return objectMapper.readValue(json, MESSAGE_LIST);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.example.entity.Message;
+import com.example.exception.MessageCreationException;
+import com.example.service.MessageService;
+
+/**
+ * MessageService against the seeded database. Reads go through the caches exactly as they do when serving
+ * requests, so getMessageById and getAllMessagesByAccount mostly measure cache hits once warmed up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MessageServiceBenchmark {
+    private ConfigurableApplicationContext app;
+    private MessageService messageService;
+    private long[] messageIds;
+
+    @Setup
+    public void setUp(){
+        app = BenchmarkApplication.start();
+        messageService = app.getBean(MessageService.class);
+        messageIds = BenchmarkApplication.messageIds(app);
+    }
+
+    @TearDown
+    public void tearDown(){
+        SpringApplication.exit(app);
+    }
+
+    /**
+     * Every call adds a row, so the table grows over the run.
+     */
+    @Benchmark
+    public Message postMessage() throws MessageCreationException {
+        return messageService.postMessage(new Message(randomAccountId(), "posted by the benchmark", 1669947792L));
+    }
+
+    @Benchmark
+    public List<Message> getAllMessages(){
+        return messageService.getAllMessages();
+    }
+
+    @Benchmark
+    public Message getMessageById(){
+        return messageService.getMessageById(messageIds[ThreadLocalRandom.current().nextInt(messageIds.length)]);
+    }
+
+    @Benchmark
+    public List<Message> getAllMessagesByAccount(){
+        return messageService.getAllMessagesByAccount(randomAccountId());
+    }
+
+    private static long randomAccountId(){
+        return BenchmarkApplication.FIRST_ACCOUNT_ID + ThreadLocalRandom.current().nextInt(BenchmarkApplication.ACCOUNTS);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.SocialMediaApp;
+
+/**
+ * Open-model HTTP load generator. Requests are started on a fixed schedule at the target rate, picking routes by
+ * the weights of the mix, whether or not earlier requests have completed; latencies are recorded per route from
+ * each request's scheduled start, so that they are not understated when the application, or the generator
+ * itself, falls behind.
+ *
+ * Without --target the application is booted in this JVM first, with any arguments that are not load test
+ * options. Run it with "mvn -Ploadtest verify -Dloadtest.args='--rate=500 --duration=120'".
+ */
+public final class LoadGenerator {
+    private final LoadOptions options;
+    private final Map<Route, RouteStats> stats = new EnumMap<>(Route.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private LoadGenerator(LoadOptions options){
+        this.options = options;
+        for (Route route : Route.values()){
+            stats.put(route, new RouteStats(route));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        ConfigurableApplicationContext app = null;
+        URI target;
+        if (options.target == null){
+            app = SpringApplication.run(SocialMediaApp.class, options.appArgs.toArray(new String[0]));
+            target = URI.create("http://localhost:" + app.getEnvironment().getProperty("local.server.port", "8080"));
+        }
+        else{
+            target = URI.create(options.target);
+        }
+        try{
+            new LoadGenerator(options).run(target);
+        }
+        finally{
+            if (app != null){
+                SpringApplication.exit(app);
+            }
+        }
+        System.exit(0);
+    }
+
+    private void run(URI target) throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "load-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(options.timeoutSeconds))
+                .executor(executor)
+                .build();
+        Random random = new Random(options.seed);
+        Workload workload = new Workload(target, Duration.ofSeconds(options.timeoutSeconds), random);
+        System.out.println("Seeding " + options.accounts + " accounts with " + options.messagesPerAccount + " messages each");
+        workload.seed(client, options.accounts, options.messagesPerAccount);
+
+        System.out.println("Sending " + options.rate + " requests/s for " + options.warmupSeconds + " s of warm-up and "
+                + options.durationSeconds + " s of measurement");
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        RouteChooser chooser = new RouteChooser(options.mix, random);
+        for (long i = 0; ; i++){
+            long intended = start + (long) (i * 1e9 / options.rate);
+            if (intended >= end){
+                break;
+            }
+            for (long wait = intended - System.nanoTime(); wait > 0; wait = intended - System.nanoTime()){
+                LockSupport.parkNanos(wait);
+            }
+            send(client, workload, chooser.next(), intended, intended >= measureFrom);
+        }
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.timeoutSeconds);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline){
+            Thread.sleep(10);
+        }
+        new LoadReport(options, target, new ArrayList<>(stats.values())).write(System.out);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Sends one request; requests scheduled during the warm-up are sent but not recorded.
+     */
+    private void send(HttpClient client, Workload workload, Route route, long intended, boolean measured){
+        RouteStats routeStats = stats.get(route);
+        Workload.Call call = workload.call(route);
+        if (call == null){
+            if (measured){
+                routeStats.skip();
+            }
+            return;
+        }
+        inFlight.incrementAndGet();
+        long sent = System.nanoTime();
+        client.sendAsync(call.request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, failure) -> {
+            try{
+                if (measured){
+                    routeStats.record(intended, sent, System.nanoTime(), response, failure);
+                }
+                if (response != null){
+                    call.onResponse.accept(response);
+                }
+            }
+            finally{
+                inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Picks routes at random in proportion to their weights in the mix.
+     */
+    private static final class RouteChooser {
+        private final List<Route> routes = new ArrayList<>();
+        private final int[] cumulativeWeights;
+        private final Random random;
+
+        RouteChooser(Map<Route, Integer> mix, Random random){
+            this.random = random;
+            this.cumulativeWeights = new int[mix.size()];
+            int total = 0;
+            for (Map.Entry<Route, Integer> entry : mix.entrySet()){
+                total += entry.getValue();
+                cumulativeWeights[routes.size()] = total;
+                routes.add(entry.getKey());
+            }
+        }
+
+        Route next(){
+            int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            int index = 0;
+            while (pick >= cumulativeWeights[index]){
+                index++;
+            }
+            return routes.get(index);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Options for a load test, given as --name=value arguments. Arguments that are not load test options are passed on
+ * to the application when it is booted locally, so that for example --app.ingest.async=true can be compared with
+ * the default.
+ */
+final class LoadOptions {
+    /**
+     * Base URI of an already running application; when absent the application is booted in this JVM.
+     */
+    String target;
+    /**
+     * Requests per second to start, whatever the response times.
+     */
+    double rate = 100;
+    long warmupSeconds = 10;
+    long durationSeconds = 60;
+    int accounts = 50;
+    int messagesPerAccount = 10;
+    long timeoutSeconds = 30;
+    long seed = 42;
+    Path reportDirectory = Paths.get("target", "loadtest");
+    final Map<Route, Integer> mix = new EnumMap<>(Route.class);
+    final List<String> appArgs = new ArrayList<>();
+
+    LoadOptions(){
+        mix.put(Route.GET, 50);
+        mix.put(Route.LIST, 20);
+        mix.put(Route.POST, 15);
+        mix.put(Route.PATCH, 5);
+        mix.put(Route.DELETE, 5);
+        mix.put(Route.LOGIN, 3);
+        mix.put(Route.REGISTER, 2);
+    }
+
+    static LoadOptions parse(String[] args){
+        LoadOptions options = new LoadOptions();
+        for (String arg : args){
+            int equals = arg.indexOf('=');
+            String name = arg.startsWith("--") && equals > 0 ? arg.substring(2, equals) : "";
+            String value = equals > 0 ? arg.substring(equals + 1) : "";
+            switch (name){
+                case "target": options.target = value; break;
+                case "rate": options.rate = Double.parseDouble(value); break;
+                case "warmup": options.warmupSeconds = Long.parseLong(value); break;
+                case "duration": options.durationSeconds = Long.parseLong(value); break;
+                case "accounts": options.accounts = Integer.parseInt(value); break;
+                case "messages-per-account": options.messagesPerAccount = Integer.parseInt(value); break;
+                case "timeout": options.timeoutSeconds = Long.parseLong(value); break;
+                case "seed": options.seed = Long.parseLong(value); break;
+                case "report-dir": options.reportDirectory = Paths.get(value); break;
+                case "mix": options.parseMix(value); break;
+                default: options.appArgs.add(arg);
+            }
+        }
+        if (options.rate <= 0 || options.durationSeconds <= 0 || options.accounts <= 0){
+            throw new IllegalArgumentException("rate, duration and accounts must be positive.");
+        }
+        return options;
+    }
+
+    /**
+     * @param value comma separated route:weight pairs, e.g. get:80,post:20
+     */
+    private void parseMix(String value){
+        mix.clear();
+        for (String entry : value.split(",")){
+            String[] parts = entry.trim().split(":");
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            if (weight > 0){
+                mix.put(Route.fromKey(parts[0]), weight);
+            }
+        }
+        if (mix.isEmpty()){
+            throw new IllegalArgumentException("The mix needs at least one route with a positive weight.");
+        }
+    }
+}
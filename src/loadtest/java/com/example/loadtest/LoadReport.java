@@ -0,0 +1,101 @@
+package com.example.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Summary of a load test: a table of corrected latency percentiles per route, the uncorrected 99th percentile
+ * for comparison, and the responses received. Alongside the summary, the corrected percentile distribution of
+ * each route is written as an .hgrm file that HdrHistogram's plotter can read.
+ */
+final class LoadReport {
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final String ROW = "%-10s %9s %9s %8s %8s %9s %9s %9s %9s %9s %13s%n";
+
+    private final LoadOptions options;
+    private final URI target;
+    private final List<RouteStats> stats;
+
+    LoadReport(LoadOptions options, URI target, List<RouteStats> stats){
+        this.options = options;
+        this.target = target;
+        this.stats = stats;
+    }
+
+    /**
+     * Prints the summary and writes it, with the histograms, to the report directory.
+     */
+    void write(PrintStream console) throws IOException {
+        Files.createDirectories(options.reportDirectory);
+        Histogram total = null;
+        StringBuilder table = new StringBuilder();
+        StringBuilder responses = new StringBuilder();
+        table.append(String.format(Locale.ROOT, ROW, "route", "requests", "rate/s", "errors", "skipped",
+                "p50", "p90", "p99", "p99.9", "max", "p99 uncorr."));
+        for (RouteStats route : stats){
+            Histogram corrected = route.correctedHistogram();
+            Histogram uncorrected = route.uncorrectedHistogram();
+            if (corrected.getTotalCount() == 0 && route.getSkipped() == 0){
+                continue;
+            }
+            table.append(row(route.getRoute().key(), corrected, uncorrected, route.getErrors(), route.getSkipped()));
+            responses.append(String.format(Locale.ROOT, "  %-10s %s%n", route.getRoute().key(), route.getOutcomes()));
+            try (PrintStream hgrm = new PrintStream(Files.newOutputStream(
+                    options.reportDirectory.resolve(route.getRoute().key() + ".hgrm")))){
+                corrected.outputPercentileDistribution(hgrm, MICROS_PER_MILLI);
+            }
+            if (total == null){
+                total = corrected.copy();
+            }
+            else{
+                total.add(corrected);
+            }
+        }
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "Open-model load test against %s: %.1f requests/s for %d s after %d s of warm-up.%n",
+                target, options.rate, options.durationSeconds, options.warmupSeconds));
+        report.append("Latencies in ms, measured from each request's scheduled start (corrected for coordinated omission).")
+                .append(System.lineSeparator()).append(System.lineSeparator());
+        report.append(table);
+        if (total != null){
+            report.append(row("all", total, null, sum(true), sum(false)));
+        }
+        report.append(System.lineSeparator()).append("Responses by status:").append(System.lineSeparator()).append(responses);
+        console.print(report);
+        Files.writeString(options.reportDirectory.resolve("summary.txt"), report);
+        console.println("Report written to " + options.reportDirectory.toAbsolutePath());
+    }
+
+    private String row(String name, Histogram corrected, Histogram uncorrected, long errors, long skipped){
+        return String.format(Locale.ROOT, ROW, name,
+                corrected.getTotalCount(),
+                String.format(Locale.ROOT, "%.1f", corrected.getTotalCount() / (double) options.durationSeconds),
+                errors,
+                skipped,
+                millis(corrected.getValueAtPercentile(50)),
+                millis(corrected.getValueAtPercentile(90)),
+                millis(corrected.getValueAtPercentile(99)),
+                millis(corrected.getValueAtPercentile(99.9)),
+                millis(corrected.getMaxValue()),
+                uncorrected == null ? "" : millis(uncorrected.getValueAtPercentile(99)));
+    }
+
+    private long sum(boolean errors){
+        long sum = 0;
+        for (RouteStats route : stats){
+            sum += errors ? route.getErrors() : route.getSkipped();
+        }
+        return sum;
+    }
+
+    private static String millis(long micros){
+        return String.format(Locale.ROOT, "%.2f", micros / MICROS_PER_MILLI);
+    }
+}
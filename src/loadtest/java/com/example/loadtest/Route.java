@@ -0,0 +1,33 @@
+package com.example.loadtest;
+
+/**
+ * The API routes the load generator can send, named as they are given in the --mix option.
+ */
+enum Route {
+    REGISTER("register"),
+    LOGIN("login"),
+    POST("post"),
+    GET("get"),
+    LIST("list"),
+    PATCH("patch"),
+    DELETE("delete");
+
+    private final String key;
+
+    Route(String key){
+        this.key = key;
+    }
+
+    String key(){
+        return key;
+    }
+
+    static Route fromKey(String key){
+        for (Route route : values()){
+            if (route.key.equals(key)){
+                return route;
+            }
+        }
+        throw new IllegalArgumentException("Unknown route " + key + " in the mix.");
+    }
+}
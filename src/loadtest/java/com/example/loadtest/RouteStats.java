@@ -0,0 +1,89 @@
+package com.example.loadtest;
+
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latencies and outcomes of the requests sent to one route, recorded in microseconds.
+ *
+ * The corrected histogram measures each request from the time it was scheduled to start, so a stall in the
+ * application or in the generator shows up in the latency of every request that should have been sent during it.
+ * The uncorrected histogram measures from the time the request was actually sent; the two only drift apart when
+ * the generator could not keep to its schedule, which is a sign that its results understate the latencies.
+ */
+final class RouteStats {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Route route;
+    private final Recorder corrected = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Recorder uncorrected = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    RouteStats(Route route){
+        this.route = route;
+    }
+
+    Route getRoute(){
+        return route;
+    }
+
+    void record(long intendedNanos, long sentNanos, long completedNanos, HttpResponse<?> response, Throwable failure){
+        corrected.recordValue(toMicros(completedNanos - intendedNanos));
+        uncorrected.recordValue(toMicros(completedNanos - sentNanos));
+        String outcome;
+        if (response != null){
+            outcome = String.valueOf(response.statusCode());
+            if (response.statusCode() >= 400){
+                errors.increment();
+            }
+        }
+        else{
+            Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+            outcome = cause.getClass().getSimpleName();
+            errors.increment();
+        }
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Counts a scheduled request that could not be sent, e.g. a delete when no message is left to delete.
+     */
+    void skip(){
+        skipped.increment();
+    }
+
+    private static long toMicros(long nanos){
+        return Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0), HIGHEST_TRACKABLE_MICROS);
+    }
+
+    Histogram correctedHistogram(){
+        return corrected.getIntervalHistogram();
+    }
+
+    Histogram uncorrectedHistogram(){
+        return uncorrected.getIntervalHistogram();
+    }
+
+    long getErrors(){
+        return errors.sum();
+    }
+
+    long getSkipped(){
+        return skipped.sum();
+    }
+
+    Map<String, Long> getOutcomes(){
+        Map<String, Long> counts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+        return counts;
+    }
+}
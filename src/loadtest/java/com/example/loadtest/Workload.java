@@ -0,0 +1,227 @@
+package com.example.loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Builds the requests for each route from a pool of accounts, each with its session token and the ids of the
+ * messages it has posted, and keeps the pool up to date from the responses.
+ *
+ * Requests are built on the scheduling thread only, so the seeded Random keeps the sequence of routes and targets
+ * reproducible; responses are handled on the client's threads.
+ */
+final class Workload {
+    private static final String SESSION_TOKEN_HEADER = "X-Session-Token";
+    /**
+     * Registrations and logins hash a password each, so seeding keeps few of them in flight at once.
+     */
+    private static final int SEED_CONCURRENCY = 8;
+
+    private final URI target;
+    private final Duration timeout;
+    private final Random random;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Session> sessions = new CopyOnWriteArrayList<>();
+    private final String usernamePrefix;
+    private final AtomicLong usernameCounter = new AtomicLong();
+
+    /**
+     * A request ready to be sent, and what to do with its response.
+     */
+    static final class Call {
+        final HttpRequest request;
+        final Consumer<HttpResponse<String>> onResponse;
+
+        Call(HttpRequest request, Consumer<HttpResponse<String>> onResponse){
+            this.request = request;
+            this.onResponse = onResponse;
+        }
+    }
+
+    private static final class Session {
+        final String username;
+        final String password;
+        volatile long accountId;
+        volatile String token;
+        final ConcurrentLinkedDeque<Long> messageIds = new ConcurrentLinkedDeque<>();
+
+        Session(String username, String password){
+            this.username = username;
+            this.password = password;
+        }
+    }
+
+    Workload(URI target, Duration timeout, Random random){
+        this.target = target;
+        this.timeout = timeout;
+        this.random = random;
+        this.usernamePrefix = "load" + Long.toString(System.currentTimeMillis(), 36) + "-";
+    }
+
+    /**
+     * Registers and logs in the given number of accounts, then posts messages for each of them.
+     */
+    void seed(HttpClient client, int accounts, int messagesPerAccount){
+        List<Session> seeded = new ArrayList<>();
+        for (int i = 0; i < accounts; i++){
+            seeded.add(new Session(nextUsername(), "password"));
+        }
+        sendAll(client, seeded, session -> register(session, response -> onRegistered(session, response)));
+        sendAll(client, seeded, this::login);
+        sessions.addAll(seeded);
+        for (int i = 0; i < messagesPerAccount; i++){
+            sendAll(client, seeded, this::post);
+        }
+    }
+
+    private void sendAll(HttpClient client, List<Session> targets, Function<Session, Call> calls){
+        for (int from = 0; from < targets.size(); from += SEED_CONCURRENCY){
+            List<CompletableFuture<?>> pending = new ArrayList<>();
+            for (Session session : targets.subList(from, Math.min(from + SEED_CONCURRENCY, targets.size()))){
+                Call call = calls.apply(session);
+                pending.add(client.sendAsync(call.request, HttpResponse.BodyHandlers.ofString()).thenAccept(response -> {
+                    if (response.statusCode() != 200){
+                        throw new IllegalStateException("Seeding request " + call.request.uri() + " failed with "
+                                + response.statusCode() + ": " + response.body());
+                    }
+                    call.onResponse.accept(response);
+                }));
+            }
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        }
+    }
+
+    /**
+     * @return the next request for the route, or null if there is nothing for it to act on
+     */
+    Call call(Route route){
+        Session session = sessions.get(random.nextInt(sessions.size()));
+        switch (route){
+            case REGISTER:
+                Session registered = new Session(nextUsername(), "password");
+                return register(registered, response -> {
+                    onRegistered(registered, response);
+                    if (response.statusCode() == 200){
+                        sessions.add(registered);
+                    }
+                });
+            case LOGIN:
+                return login(session);
+            case POST:
+                return post(session);
+            case GET:
+                Long messageId = session.messageIds.peekLast();
+                return messageId == null ? null : call(builder("/messages/" + messageId).GET(), session, ignored -> {});
+            case LIST:
+                return call(builder("/accounts/" + session.accountId + "/messages?limit=20").GET(), session, ignored -> {});
+            case PATCH:
+                Long patchedId = session.messageIds.peekLast();
+                return patchedId == null ? null : call(builder("/messages/" + patchedId)
+                        .method("PATCH", json(messageBody(session, "updated by the load test"))), session, ignored -> {});
+            case DELETE:
+                Long deletedId = session.messageIds.pollFirst();
+                return deletedId == null ? null : call(builder("/messages/" + deletedId).DELETE(), session, ignored -> {});
+            default:
+                throw new IllegalArgumentException("Unsupported route " + route);
+        }
+    }
+
+    private Call register(Session session, Consumer<HttpResponse<String>> onResponse){
+        return new Call(builder("/register").POST(json(accountBody(session))).build(), onResponse);
+    }
+
+    private Call login(Session session){
+        return new Call(builder("/login").POST(json(accountBody(session))).build(), response -> {
+            if (response.statusCode() == 200){
+                response.headers().firstValue(SESSION_TOKEN_HEADER).ifPresent(token -> session.token = token);
+            }
+        });
+    }
+
+    private Call post(Session session){
+        return call(builder("/messages").POST(json(messageBody(session, "posted by the load test"))), session, response -> {
+            if (response.statusCode() == 200 || response.statusCode() == 202){
+                session.messageIds.addLast(readTree(response).get("messageId").asLong());
+            }
+        });
+    }
+
+    private void onRegistered(Session session, HttpResponse<String> response){
+        if (response.statusCode() == 200){
+            session.accountId = readTree(response).get("accountId").asLong();
+        }
+    }
+
+    /**
+     * Sends the account's session token when it has one, as a logged in client would.
+     */
+    private Call call(HttpRequest.Builder builder, Session session, Consumer<HttpResponse<String>> onResponse){
+        String token = session.token;
+        if (token != null){
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return new Call(builder.build(), onResponse);
+    }
+
+    private HttpRequest.Builder builder(String path){
+        return HttpRequest.newBuilder(target.resolve(path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json");
+    }
+
+    private String nextUsername(){
+        return usernamePrefix + usernameCounter.incrementAndGet();
+    }
+
+    private Map<String, Object> accountBody(Session session){
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("username", session.username);
+        body.put("password", session.password);
+        return body;
+    }
+
+    private Map<String, Object> messageBody(Session session, String text){
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("postedBy", session.accountId);
+        body.put("messageText", text);
+        body.put("timePostedEpoch", System.currentTimeMillis() / 1000);
+        return body;
+    }
+
+    private HttpRequest.BodyPublisher json(Object body){
+        try{
+            return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body));
+        }
+        catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonNode readTree(HttpResponse<String> response){
+        try{
+            return objectMapper.readTree(response.body());
+        }
+        catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+}
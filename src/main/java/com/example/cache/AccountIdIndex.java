@@ -0,0 +1,103 @@
+package com.example.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import com.example.repository.AccountRepository;
+import com.example.util.ConcurrentLongHashSet;
+
+/**
+ * In-memory set of the ids of every existing account, used to confirm that a poster exists without a query.
+ *
+ * The set is filled from the account table once the application is ready and kept up to date by registration.
+ * Ids that are not in the set are still looked up in the database, so an id missed by the startup load is only
+ * a cache miss, never a wrong answer.
+ */
+@Component
+public class AccountIdIndex {
+    private final AccountRepository accountRepository;
+    private final ConcurrentLongHashSet accountIds;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public AccountIdIndex(AccountRepository accountRepository,
+                          @Value("${app.cache.account-ids.expected-size}") int expectedSize){
+        this.accountRepository = accountRepository;
+        this.accountIds = new ConcurrentLongHashSet(expectedSize, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Load every account id from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void load(){
+        try (Stream<Long> ids = accountRepository.streamAllAccountIds()){
+            ids.forEach(accountIds::add);
+        }
+    }
+
+    /**
+     * Record a newly registered account.
+     * @param accountId
+     */
+    public void add(long accountId){
+        accountIds.add(accountId);
+    }
+
+    /**
+     * @param accountId
+     * @return true if the id is known without asking the database
+     */
+    public boolean contains(long accountId){
+        return accountIds.contains(accountId);
+    }
+
+    /**
+     * @param accountId may be null
+     * @return true if an account has this id, answered from memory when possible
+     */
+    public boolean exists(Long accountId){
+        if (accountId == null){
+            return false;
+        }
+        if (accountIds.contains(accountId)){
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        if (accountRepository.existsByAccountId(accountId)){
+            accountIds.add(accountId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return number of account ids held in memory
+     */
+    public long size(){
+        return accountIds.size();
+    }
+
+    /**
+     * @return number of existence checks answered from memory
+     */
+    public long getHitCount(){
+        return hits.sum();
+    }
+
+    /**
+     * @return number of existence checks that went to the database
+     */
+    public long getMissCount(){
+        return misses.sum();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import com.example.entity.Message;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Bounded cache of the full message list of each account, keyed by accountId.
+ *
+ * Entries are weighed by the number of messages they hold and expire a fixed time after being loaded. Writes
+ * patch the list of the message's poster in place instead of dropping it, so hot accounts stay cached across
+ * edits. Cached lists are immutable copies and are never handed out as managed entities.
+ */
+@Component
+public class AccountTimelineCache {
+    private final Cache<Long, List<Message>> timelines;
+
+    @Autowired
+    public AccountTimelineCache(@Value("${app.cache.timeline.maximum-messages}") long maximumMessages,
+                                @Value("${app.cache.timeline.expire-after-write}") Duration expireAfterWrite){
+        this.timelines = Caffeine.newBuilder()
+                .maximumWeight(maximumMessages)
+                .weigher((Long accountId, List<Message> messages) -> messages.size() + 1)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Return the cached list for an account, loading it on a miss. Concurrent misses for the same account share
+     * a single load.
+     * @param accountId
+     * @param loader called with the accountId to read the list from the database
+     * @return immutable list of messages posted by the account
+     */
+    public List<Message> get(Long accountId, Function<Long, List<Message>> loader){
+        return timelines.get(accountId, id -> copyOf(loader.apply(id)));
+    }
+
+    /**
+     * Append a newly persisted message to its author's list if that list is cached.
+     * @param message
+     */
+    public void messagePosted(Message message){
+        patch(message.getPostedBy(), messages -> {
+            for (Message cached : messages){
+                if (cached.getMessageId().equals(message.getMessageId())){
+                    return messages;
+                }
+            }
+            List<Message> updated = new ArrayList<>(messages.size() + 1);
+            updated.addAll(messages);
+            updated.add(copyOf(message));
+            return Collections.unmodifiableList(updated);
+        });
+    }
+
+    /**
+     * Replace the text of a message in its poster's list.
+     * @param postedBy account that posted the message
+     * @param messageId
+     * @param messageText new text
+     */
+    public void messageUpdated(Long postedBy, Long messageId, String messageText){
+        patch(postedBy, messages -> {
+            List<Message> updated = new ArrayList<>(messages.size());
+            for (Message cached : messages){
+                if (cached.getMessageId().equals(messageId)){
+                    cached = new Message(cached.getMessageId(), cached.getPostedBy(), messageText, cached.getTimePostedEpoch());
+                }
+                updated.add(cached);
+            }
+            return Collections.unmodifiableList(updated);
+        });
+    }
+
+    /**
+     * Remove a set of messages from their posters' lists.
+     * @param postersById account that posted each message, keyed by messageId
+     */
+    public void messagesDeleted(Map<Long, Long> postersById){
+        Map<Long, Set<Long>> messageIdsByPoster = new HashMap<>();
+        for (Map.Entry<Long, Long> entry : postersById.entrySet()){
+            messageIdsByPoster.computeIfAbsent(entry.getValue(), accountId -> new HashSet<>()).add(entry.getKey());
+        }
+        for (Map.Entry<Long, Set<Long>> entry : messageIdsByPoster.entrySet()){
+            Set<Long> messageIds = entry.getValue();
+            patch(entry.getKey(), messages -> {
+                List<Message> updated = new ArrayList<>(messages.size());
+                for (Message cached : messages){
+                    if (!messageIds.contains(cached.getMessageId())){
+                        updated.add(cached);
+                    }
+                }
+                return Collections.unmodifiableList(updated);
+            });
+        }
+    }
+
+    /**
+     * Drop the cached list of an account.
+     * @param accountId
+     */
+    public void invalidate(Long accountId){
+        timelines.invalidate(accountId);
+    }
+
+    /**
+     * @return hit, miss, load and eviction counters since startup
+     */
+    public CacheStats stats(){
+        return timelines.stats();
+    }
+
+    /**
+     * Patch the cached list of an account after a committed write. A list that is still being loaded is not seen
+     * by computeIfPresent and may have been read before the write, so the key is then invalidated, which waits
+     * for the load and drops what it read.
+     */
+    private void patch(Long accountId, UnaryOperator<List<Message>> update){
+        if (timelines.asMap().computeIfPresent(accountId, (id, messages) -> update.apply(messages)) == null){
+            timelines.invalidate(accountId);
+        }
+    }
+
+    private static List<Message> copyOf(List<Message> messages){
+        List<Message> copies = new ArrayList<>(messages.size());
+        for (Message message : messages){
+            copies.add(copyOf(message));
+        }
+        return Collections.unmodifiableList(copies);
+    }
+
+    static Message copyOf(Message message){
+        return new Message(message.getMessageId(), message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.example.dto.MessageCursor;
+import com.example.entity.Message;
+
+/**
+ * Precomputed home timeline of one account: the newest messages of the accounts it follows, newest first, capped
+ * at a fixed number of entries. Only (timePostedEpoch, messageId) positions are kept, with messages posted without
+ * a timePostedEpoch placed as MessageCursor orders them; message bodies are loaded by id when a page is read.
+ *
+ * Followees are split into regular accounts, whose messages are pushed into the timeline when posted, and
+ * celebrities with too many followers to push to, whose messages are merged in when the feed is read.
+ */
+public class HomeTimeline {
+    private static final Comparator<MessageCursor> NEWEST_FIRST = Comparator
+            .comparingLong(MessageCursor::getTimePostedEpoch)
+            .thenComparingLong(MessageCursor::getMessageId)
+            .reversed();
+
+    private final int capacity;
+    private final Set<Long> followees;
+    private final Set<Long> celebrities;
+    private final TreeSet<MessageCursor> entries = new TreeSet<>(NEWEST_FIRST);
+    private boolean truncated;
+
+    /**
+     * @param capacity maximum number of entries kept
+     * @param followees regular accounts followed
+     * @param celebrities accounts followed whose messages are merged in on read
+     * @param recent newest messages of the regular followees, at most capacity of them
+     */
+    public HomeTimeline(int capacity, Set<Long> followees, Set<Long> celebrities, List<Message> recent){
+        this.capacity = capacity;
+        this.followees = Set.copyOf(followees);
+        this.celebrities = Set.copyOf(celebrities);
+        for (Message message : recent){
+            entries.add(MessageCursor.after(message));
+        }
+        this.truncated = recent.size() >= capacity;
+        trim();
+    }
+
+    /**
+     * Push a newly posted message into the timeline. Adding the same message twice has no effect.
+     * @param message
+     */
+    public synchronized void add(Message message){
+        entries.add(MessageCursor.after(message));
+        trim();
+    }
+
+    /**
+     * @param cursor position to start after
+     * @param count maximum number of entries
+     * @return ids of the newest entries past the cursor, newest first
+     */
+    public synchronized List<Long> idsAfter(MessageCursor cursor, int count){
+        List<Long> ids = new ArrayList<>(count);
+        for (MessageCursor entry : entries.tailSet(cursor, false)){
+            if (ids.size() == count){
+                break;
+            }
+            ids.add(entry.getMessageId());
+        }
+        return ids;
+    }
+
+    /**
+     * Remove entries whose messages turned out to be deleted.
+     * @param messageIds
+     */
+    public synchronized void removeAll(Set<Long> messageIds){
+        entries.removeIf(entry -> messageIds.contains(entry.getMessageId()));
+    }
+
+    /**
+     * @return true if older messages of the regular followees were dropped to respect the capacity
+     */
+    public synchronized boolean isTruncated(){
+        return truncated;
+    }
+
+    public Set<Long> getFollowees(){
+        return followees;
+    }
+
+    public Set<Long> getCelebrities(){
+        return celebrities;
+    }
+
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    private void trim(){
+        while (entries.size() > capacity){
+            entries.pollLast();
+            truncated = true;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Function;
+
+import com.example.entity.Message;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Bounded cache of home timelines, keyed by the id of the following account.
+ *
+ * Timelines are built from the database on first read and then receive new messages by fan-out on write. They
+ * expire a fixed time after being built, which also refreshes the split between regular and celebrity followees.
+ */
+@Component
+public class HomeTimelineCache {
+    private final Cache<Long, HomeTimeline> timelines;
+
+    @Autowired
+    public HomeTimelineCache(@Value("${app.feed.timelines.maximum-size}") long maximumSize,
+                             @Value("${app.feed.timelines.expire-after-write}") Duration expireAfterWrite){
+        this.timelines = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Return the timeline of an account, building it on a miss. Concurrent misses share a single build.
+     * @param accountId
+     * @param loader called with the accountId to build the timeline
+     * @return timeline of the account
+     */
+    public HomeTimeline get(Long accountId, Function<Long, HomeTimeline> loader){
+        return timelines.get(accountId, loader);
+    }
+
+    /**
+     * Push a message into the timelines of those followers that are cached. Timelines that are not cached will
+     * read the message from the database when they are built. A follower without a cached timeline is still
+     * invalidated, which waits for a build that is in flight and drops it, as that build may have read the table
+     * before the message was committed.
+     * @param message
+     * @param followerIds
+     */
+    public void messagePosted(Message message, Collection<Long> followerIds){
+        for (Long followerId : followerIds){
+            HomeTimeline timeline = timelines.getIfPresent(followerId);
+            if (timeline != null){
+                timeline.add(message);
+            }
+            else{
+                timelines.invalidate(followerId);
+            }
+        }
+    }
+
+    /**
+     * Drop the timeline of an account, for example because the accounts it follows changed.
+     * @param accountId
+     */
+    public void invalidate(Long accountId){
+        timelines.invalidate(accountId);
+    }
+
+    /**
+     * Drop the timelines of several accounts.
+     * @param accountIds
+     */
+    public void invalidateAll(Collection<Long> accountIds){
+        timelines.invalidateAll(accountIds);
+    }
+
+    /**
+     * Drop every timeline.
+     */
+    public void invalidateAll(){
+        timelines.invalidateAll();
+    }
+
+    /**
+     * @return hit, miss, load and eviction counters since startup
+     */
+    public CacheStats stats(){
+        return timelines.stats();
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.example.entity.Message;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Read-through cache of single messages keyed by messageId.
+ *
+ * Caffeine evicts by W-TinyLFU once the size bound is reached. Lookups of ids that do not exist are cached as
+ * empty entries with a much shorter lifetime, so repeated probes for missing ids do not reach the database.
+ * Concurrent misses for one id block on a single load instead of each issuing a query.
+ */
+@Component
+public class MessageCache {
+    private final Cache<Long, Optional<Message>> messages;
+
+    @Autowired
+    public MessageCache(@Value("${app.cache.message.maximum-size}") long maximumSize,
+                        @Value("${app.cache.message.expire-after-write}") Duration expireAfterWrite,
+                        @Value("${app.cache.message.negative-expire-after-write}") Duration negativeExpireAfterWrite){
+        this.messages = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new PresenceExpiry(expireAfterWrite.toNanos(), negativeExpireAfterWrite.toNanos()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Return the cached message, loading it on a miss.
+     * @param messageId
+     * @param loader called with the messageId to read the message from the database
+     * @return message, or empty if no message has this id
+     */
+    public Optional<Message> get(Long messageId, Function<Long, Optional<Message>> loader){
+        return messages.get(messageId, id -> loader.apply(id).map(AccountTimelineCache::copyOf));
+    }
+
+    /**
+     * @param messageId
+     * @return the cached message, empty if the id is cached as not existing, or null if the id is not cached
+     */
+    public Optional<Message> getIfPresent(Long messageId){
+        return messages.getIfPresent(messageId);
+    }
+
+    /**
+     * Store a newly persisted message, replacing any negative entry for its id.
+     * @param message
+     */
+    public void messagePosted(Message message){
+        messages.put(message.getMessageId(), Optional.of(AccountTimelineCache.copyOf(message)));
+    }
+
+    /**
+     * Evict a message whose text changed; the next read reloads it.
+     * @param messageId
+     */
+    public void messageUpdated(Long messageId){
+        messages.invalidate(messageId);
+    }
+
+    /**
+     * Record that a message no longer exists.
+     * @param messageId
+     */
+    public void messageDeleted(Long messageId){
+        messages.put(messageId, Optional.empty());
+    }
+
+    /**
+     * @return hit, miss, load and eviction counters since startup
+     */
+    public CacheStats stats(){
+        return messages.stats();
+    }
+
+    /**
+     * Gives present and empty entries different lifetimes. Entries replaced by a write restart their lifetime.
+     */
+    private static class PresenceExpiry implements Expiry<Long, Optional<Message>> {
+        private final long presentNanos;
+        private final long absentNanos;
+
+        PresenceExpiry(long presentNanos, long absentNanos){
+            this.presentNanos = presentNanos;
+            this.absentNanos = absentNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(Long messageId, Optional<Message> message, long currentTime){
+            return message.isPresent() ? presentNanos : absentNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long messageId, Optional<Message> message, long currentTime, long currentDuration){
+            return expireAfterCreate(messageId, message, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long messageId, Optional<Message> message, long currentTime, long currentDuration){
+            return currentDuration;
+        }
+    }
+}
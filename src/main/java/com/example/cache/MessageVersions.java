@@ -0,0 +1,96 @@
+package com.example.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.example.entity.Message;
+
+/**
+ * Version counters behind the ETags of message reads: one for all messages, one per account and one per message.
+ * Writes bump them once committed and once the caches have been patched, so a tag read before loading a response
+ * never outlives the data it was sent with.
+ *
+ * Per-account and per-message versions are striped over fixed arrays, so memory does not grow with the data; ids
+ * sharing a stripe only cost each other a full response. Every tag carries a nonce chosen at startup, so tags
+ * from an earlier run never match.
+ */
+@Component
+public class MessageVersions {
+    private final String nonce = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong global = new AtomicLong();
+    private final AtomicLongArray accounts;
+    private final AtomicLongArray messages;
+    private final int stripeMask;
+
+    @Autowired
+    public MessageVersions(@Value("${app.etag.stripes}") int stripes){
+        int size = Integer.highestOneBit(Math.max(stripes - 1, 1)) << 1;
+        this.accounts = new AtomicLongArray(size);
+        this.messages = new AtomicLongArray(size);
+        this.stripeMask = size - 1;
+    }
+
+    /**
+     * @return tag for reads over all messages
+     */
+    public String allMessagesTag(){
+        return tag(Long.toString(global.get()));
+    }
+
+    /**
+     * @param accountId
+     * @return tag for reads over the messages posted by the account
+     */
+    public String accountTag(Long accountId){
+        return tag(Long.toString(accounts.get(stripe(accountId))));
+    }
+
+    /**
+     * @param messageId
+     * @return tag for reads of a single message
+     */
+    public String messageTag(Long messageId){
+        return tag(Long.toString(messages.get(stripe(messageId))));
+    }
+
+    /**
+     * Record a change to messages whose posters are known.
+     * @param changed messages carrying their ids and posters
+     */
+    public void messagesChanged(Collection<Message> changed){
+        for (Message message : changed){
+            messages.incrementAndGet(stripe(message.getMessageId()));
+            accounts.incrementAndGet(stripe(message.getPostedBy()));
+        }
+        global.incrementAndGet();
+    }
+
+    /**
+     * Record a change to messages by id.
+     * @param messageIds
+     * @param posters accounts that posted the messages
+     */
+    public void messagesChanged(Collection<Long> messageIds, Collection<Long> posters){
+        for (Long messageId : messageIds){
+            messages.incrementAndGet(stripe(messageId));
+        }
+        for (Long accountId : posters){
+            accounts.incrementAndGet(stripe(accountId));
+        }
+        global.incrementAndGet();
+    }
+
+    private String tag(String version){
+        return "\"" + nonce + "-" + version + "\"";
+    }
+
+    private int stripe(Long id){
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & stripeMask;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.example.entity.Message;
+
+/**
+ * Messages accepted for write-behind ingestion that are not yet committed, so that reads can include them.
+ *
+ * A message is added before it is queued and removed only after it has been committed and the caches have been
+ * patched, so at every point a read finds it in the overlay, the database or both. Readers de-duplicate by id.
+ * Adding and removing messages changes what reads return, so both bump the message versions.
+ */
+@Component
+public class PendingMessageOverlay {
+    private final Map<Long, Message> messagesById = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, Message>> messagesByAccount = new ConcurrentHashMap<>();
+    private final MessageVersions versions;
+
+    @Autowired
+    public PendingMessageOverlay(MessageVersions versions){
+        this.versions = versions;
+    }
+
+    /**
+     * @param message accepted message carrying its allocated id
+     */
+    public void add(Message message){
+        messagesById.put(message.getMessageId(), message);
+        messagesByAccount.computeIfAbsent(message.getPostedBy(), accountId -> new ConcurrentHashMap<>())
+                .put(message.getMessageId(), message);
+        versions.messagesChanged(List.of(message));
+    }
+
+    /**
+     * @param messages messages that are now committed, or were dropped
+     */
+    public void removeAll(Collection<Message> messages){
+        for (Message message : messages){
+            messagesById.remove(message.getMessageId());
+            messagesByAccount.computeIfPresent(message.getPostedBy(), (accountId, pending) -> {
+                pending.remove(message.getMessageId());
+                return pending.isEmpty() ? null : pending;
+            });
+        }
+        versions.messagesChanged(messages);
+    }
+
+    /**
+     * @param messageId
+     * @return the pending message with this id, or null
+     */
+    public Message get(Long messageId){
+        return messagesById.get(messageId);
+    }
+
+    /**
+     * @param accountId
+     * @return pending messages posted by the account
+     */
+    public List<Message> byAccount(Long accountId){
+        Map<Long, Message> pending = messagesByAccount.get(accountId);
+        return pending == null ? List.of() : new ArrayList<>(pending.values());
+    }
+
+    /**
+     * @return every pending message
+     */
+    public List<Message> all(){
+        return new ArrayList<>(messagesById.values());
+    }
+
+    public boolean isEmpty(){
+        return messagesById.isEmpty();
+    }
+
+    public int size(){
+        return messagesById.size();
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import com.example.repository.AccountRepository;
+import com.example.util.ScalableBloomFilter;
+
+/**
+ * Bloom filter over every registered username, used to reject logins for unknown usernames without a query.
+ *
+ * The filter is built from the account table once the application is ready; until then every username is
+ * reported as possibly existing. Registration adds to it. It can be rebuilt while serving traffic, which compacts
+ * its stages into one sized for the current table; registrations that happen during a rebuild go to both the old
+ * and the new filter. A rebuild is started in the background once registrations have grown the filter to
+ * app.cache.usernames.max-stages stages.
+ */
+@Component
+public class UsernameFilter {
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long expectedUsernames;
+    private final double falsePositiveRate;
+    private final int maxStages;
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "username-filter-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private volatile ScalableBloomFilter filter;
+    private volatile ScalableBloomFilter rebuilding;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    @Autowired
+    public UsernameFilter(AccountRepository accountRepository, PlatformTransactionManager transactionManager,
+                          @Value("${app.cache.usernames.expected-size}") long expectedUsernames,
+                          @Value("${app.cache.usernames.false-positive-rate}") double falsePositiveRate,
+                          @Value("${app.cache.usernames.max-stages}") int maxStages){
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.expectedUsernames = expectedUsernames;
+        this.falsePositiveRate = falsePositiveRate;
+        this.maxStages = maxStages;
+    }
+
+    /**
+     * Build the filter from the account table, replacing the current one once complete. The table is read in a
+     * transaction of its own, so the background rebuild can call this directly.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild(){
+        transactionTemplate.executeWithoutResult(status -> {
+            ScalableBloomFilter next = new ScalableBloomFilter(Math.max(expectedUsernames, accountRepository.count()), falsePositiveRate);
+            rebuilding = next;
+            try (Stream<String> usernames = accountRepository.streamAllUsernames()){
+                usernames.forEach(next::add);
+            }
+            filter = next;
+            rebuilding = null;
+        });
+        rebuilds.increment();
+    }
+
+    /**
+     * Record a newly registered username. Must be called once the account is committed.
+     *
+     * The rebuilding filter is read before the current one. A rebuild publishes the new filter before it clears
+     * rebuilding, so whichever moment of a rebuild this call lands in, the username reaches the new filter, either
+     * directly or through the table the rebuild streams.
+     * @param username
+     */
+    public void add(String username){
+        ScalableBloomFilter next = rebuilding;
+        ScalableBloomFilter current = filter;
+        if (current != null){
+            current.add(username);
+            if (current.stageCount() >= maxStages){
+                scheduleRebuild();
+            }
+        }
+        if (next != null && next != current){
+            next.add(username);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void scheduleRebuild(){
+        if (!rebuildScheduled.compareAndSet(false, true)){
+            return;
+        }
+        rebuildExecutor.execute(() -> {
+            try{
+                rebuild();
+            }
+            finally{
+                rebuildScheduled.set(false);
+            }
+        });
+    }
+
+    /**
+     * @param username
+     * @return false only if no account can have this username
+     */
+    public boolean mightExist(String username){
+        ScalableBloomFilter current = filter;
+        if (current == null || current.mightContain(username)){
+            passed.increment();
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Record that a username let through by the filter turned out not to exist.
+     */
+    public void recordFalsePositive(){
+        falsePositives.increment();
+    }
+
+    /**
+     * @return number of lookups rejected without a query
+     */
+    public long getRejectedCount(){
+        return rejected.sum();
+    }
+
+    /**
+     * @return number of lookups let through to the database
+     */
+    public long getPassedCount(){
+        return passed.sum();
+    }
+
+    /**
+     * @return number of lookups let through for usernames that did not exist
+     */
+    public long getFalsePositiveCount(){
+        return falsePositives.sum();
+    }
+
+    /**
+     * @return share of unknown usernames that the filter failed to reject, as observed so far
+     */
+    public double getObservedFalsePositiveRate(){
+        long falsePositiveCount = falsePositives.sum();
+        long absent = falsePositiveCount + rejected.sum();
+        return absent == 0 ? 0.0 : (double) falsePositiveCount / absent;
+    }
+
+    /**
+     * @return false positive rate predicted from the fill of the filter's bit arrays
+     */
+    public double getExpectedFalsePositiveRate(){
+        ScalableBloomFilter current = filter;
+        return current == null ? 1.0 : current.expectedFalsePositiveRate();
+    }
+
+    /**
+     * @return number of times the filter was built, including the build at startup
+     */
+    public long getRebuildCount(){
+        return rebuilds.sum();
+    }
+
+    /**
+     * @return number of chained stages of the current filter
+     */
+    public int getStageCount(){
+        ScalableBloomFilter current = filter;
+        return current == null ? 0 : current.stageCount();
+    }
+
+    /**
+     * @return number of usernames added to the current filter
+     */
+    public long size(){
+        ScalableBloomFilter current = filter;
+        return current == null ? 0 : current.count();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.controller;
+
+/**
+ * If-None-Match handling for reads whose ETag is known before anything is loaded, so that a client holding the
+ * current representation is answered with 304 without a query or serialization.
+ */
+final class ConditionalRequests {
+    private static final String WEAK_PREFIX = "W/";
+
+    private ConditionalRequests(){
+    }
+
+    /**
+     * If-None-Match uses the weak comparison, so a weak form of the current tag also matches.
+     * @param ifNoneMatch value of the If-None-Match header, may be null
+     * @param etag current ETag of the resource
+     * @return true if the client already holds the current representation
+     */
+    static boolean notModified(String ifNoneMatch, String etag){
+        if (ifNoneMatch == null){
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")){
+            String tag = candidate.trim();
+            if (tag.startsWith(WEAK_PREFIX)){
+                tag = tag.substring(WEAK_PREFIX.length());
+            }
+            if (tag.equals("*") || tag.equals(etag)){
+                return true;
+            }
+        }
+        return false;
+    }
+}
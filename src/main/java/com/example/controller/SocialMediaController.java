@@ -1,39 +1,70 @@
 package com.example.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
 
+import com.example.cache.MessageVersions;
+import com.example.dto.BatchItemResult;
+import com.example.dto.MessagePage;
 import com.example.entity.*;
 import com.example.service.*;
+import com.example.session.SessionFilter;
+import com.example.session.SessionStore;
 import com.example.exception.*;
 
 /**
  * This class is responsible for performing required actions upon receiving an http request and sending appropriate http responses.
+ * With the reactive profile active ReactiveSocialMediaController serves the same routes instead.
  */
 @RestController
+@Profile("!reactive")
 public class SocialMediaController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String NDJSON = "application/x-ndjson";
+    static final String SESSION_TOKEN_HEADER = "X-Session-Token";
+    static final String RETRY_AFTER_SECONDS = "1";
 
     private final AccountService accountService;
     private final MessageService messageService;
+    private final FeedService feedService;
+    private final MessageIngestService ingestService;
+    private final SessionStore sessionStore;
+    private final MessageVersions messageVersions;
 
     @Autowired
-    public SocialMediaController(AccountService accountService, MessageService messageService){
+    public SocialMediaController(AccountService accountService, MessageService messageService, FeedService feedService,
+                                 MessageIngestService ingestService, SessionStore sessionStore,
+                                 MessageVersions messageVersions){
         this.accountService = accountService;
         this.messageService = messageService;
+        this.feedService = feedService;
+        this.ingestService = ingestService;
+        this.sessionStore = sessionStore;
+        this.messageVersions = messageVersions;
     }
 
     //Endpoints
 
     /**
      * This endpoint handles account registration via a POST to /register.
+     * Responds with 503 when too many passwords are already waiting to be hashed.
      * 
      * @param account not containing an ID
      * @return http response containing fully formed account.
@@ -50,10 +81,15 @@ public class SocialMediaController {
         catch(RegistrationException e){
             return ResponseEntity.status(400).body(e.getMessage());
         }
+        catch(HashingUnavailableException e){
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).body(e.getMessage());
+        }
     }
 
     /**
-     * This endpoint handles account logins via a POST to /login.
+     * This endpoint handles account logins via a POST to /login. A session token is issued in the
+     * X-Session-Token header; sending it back as "Authorization: Bearer <token>" authenticates later writes.
+     * Responds with 503 when too many passwords are already waiting to be hashed.
      * 
      * @param account not containing an ID
      * @return http response containing fully formed account.
@@ -62,79 +98,237 @@ public class SocialMediaController {
     public ResponseEntity<?> verifyLogin(@RequestBody Account account){
         try{
             Account verifiedAccount = accountService.verifyLogin(account);
-            return ResponseEntity.status(200).body(verifiedAccount);
+            String token = sessionStore.issue(verifiedAccount.getAccountId());
+            return ResponseEntity.status(200).header(SESSION_TOKEN_HEADER, token).body(verifiedAccount);
         }
         catch(AccountDoesNotExistException e){
             return ResponseEntity.status(401).body(e.getMessage());
         }
+        catch(HashingUnavailableException e){
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).body(e.getMessage());
+        }
+    }
+
+    /**
+     * This endpoint ends the session whose token is sent with a POST to /logout.
+     * 
+     * @param token session token resolved by the session filter
+     * @return http response with no body, 401 if no session token was sent
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestAttribute(name = SessionFilter.TOKEN, required = false) String token){
+        if (token == null){
+            return ResponseEntity.status(401).body(null);
+        }
+        sessionStore.revoke(token);
+        return ResponseEntity.status(200).body(null);
     }
 
     /**
-     * This endpoint handles the posting of messages via a POST to /messages.
+     * This endpoint handles the posting of messages via a POST to /messages. When a session token is sent the
+     * message is posted by the logged in account without checking the account table.
+     * With write-behind ingestion enabled the message is queued and 202 is returned with its id straight away,
+     * or 429 when the queue is full.
      * 
      * @param message not containing an ID
+     * @param sessionAccountId account resolved from the session token, if any
      * @return http response containing fully formed message
      */
     @PostMapping("/messages")
-    public ResponseEntity<?> postMessage(@RequestBody Message message){
+    public ResponseEntity<?> postMessage(@RequestBody Message message,
+                                         @RequestAttribute(name = SessionFilter.ACCOUNT_ID, required = false) Long sessionAccountId){
         try{
-            Message postedMessage = messageService.postMessage(message);
+            if (ingestService.isEnabled()){
+                Message acceptedMessage = ingestService.submit(message, sessionAccountId);
+                return ResponseEntity.status(202)
+                        .location(URI.create("/messages/" + acceptedMessage.getMessageId()))
+                        .body(acceptedMessage);
+            }
+            Message postedMessage = sessionAccountId == null
+                    ? messageService.postMessage(message)
+                    : messageService.postMessageAs(sessionAccountId, message);
             return ResponseEntity.status(200).body(postedMessage);
         }
         catch(MessageCreationException e){
             return ResponseEntity.status(400).body(e.getMessage());
         }
+        catch(ForbiddenActionException e){
+            return ResponseEntity.status(403).body(e.getMessage());
+        }
+        catch(IngestQueueFullException e){
+            return ResponseEntity.status(429).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).body(e.getMessage());
+        }
+    }
+
+    /**
+     * This endpoint handles the posting of many messages at once via a POST to /messages/batch.
+     * 
+     * @param messages not containing IDs
+     * @return http response containing one result per message, each with its own status code
+     */
+    @PostMapping("/messages/batch")
+    public ResponseEntity<?> postMessages(@RequestBody List<Message> messages){
+        try{
+            List<BatchItemResult> results = messageService.postMessages(messages);
+            return ResponseEntity.status(200).body(results);
+        }
+        catch(MessageCreationException e){
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
     }
 
     /**
      * This endpoint handles the retrival of all messages via a GET to /messages.
+     * When limit, after, since or until is supplied only one page is returned, newest first, and the cursor of
+     * the next page is sent in the X-Next-Cursor header. since and until bound timePostedEpoch, since inclusive
+     * and until exclusive, and must be sent again with every following page. Messages posted without a
+     * timePostedEpoch come last, newest first, and are left out whenever since is given.
+     * Responses carry an ETag that changes with any message; a request sending the current tag in If-None-Match
+     * is answered with 304 before anything is loaded.
      * 
+     * @param limit maximum number of messages to return, at least 1
+     * @param after cursor returned with the previous page
+     * @param since earliest timePostedEpoch to return
+     * @param until timePostedEpoch before which messages are returned
+     * @param ifNoneMatch ETags the client already holds
      * @return http response containing list of all messages
      */
     @GetMapping("/messages")
-    public ResponseEntity<?> getAllMessages(){
-        List<Message> messages = messageService.getAllMessages();
-        return ResponseEntity.status(200).body(messages);
+    public ResponseEntity<?> getAllMessages(@RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String after,
+                                            @RequestParam(required = false) Long since,
+                                            @RequestParam(required = false) Long until,
+                                            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        String etag = messageVersions.allMessagesTag();
+        if (ConditionalRequests.notModified(ifNoneMatch, etag)){
+            return ResponseEntity.status(304).eTag(etag).build();
+        }
+        if (limit == null && after == null && since == null && until == null){
+            List<Message> messages = messageService.getAllMessages();
+            return ResponseEntity.status(200).eTag(etag).body(messages);
+        }
+        try{
+            return pageResponse(messageService.getMessagesPage(limit, after, since, until), etag);
+        }
+        catch(InvalidCursorException e){
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    /**
+     * This endpoint handles the export of every message via a GET to /messages/export. Messages are streamed
+     * as newline delimited JSON, one message per line, without building the full list in memory.
+     * 
+     * @param response http response the messages are written to
+     * @throws IOException
+     */
+    @GetMapping(value = "/messages/export", produces = NDJSON)
+    public void exportMessages(HttpServletResponse response) throws IOException{
+        response.setStatus(200);
+        response.setContentType(NDJSON);
+        messageService.exportMessages(response.getOutputStream());
+    }
+
+    /**
+     * This endpoint handles the search of messages by text via a GET to /messages/search. Every word of q must
+     * appear in a message; a word ending in * matches any word it is a prefix of.
+     * 
+     * @param q search query
+     * @param limit maximum number of messages to return, at least 1
+     * @return http response containing matching messages, newest first
+     */
+    @GetMapping("/messages/search")
+    public ResponseEntity<?> searchMessages(@RequestParam String q, @RequestParam(required = false) Integer limit){
+        try{
+            List<Message> messages = messageService.searchMessages(q, limit);
+            return ResponseEntity.status(200).body(messages);
+        }
+        catch(InvalidSearchException e){
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
     }
 
     /**
      * This endpoint handles the retrival of a message given its ID via a Get request to /messages/{messageId}
+     * The response carries an ETag that changes with the message, and If-None-Match is honoured as for /messages.
      * 
      * @param messageId
+     * @param ifNoneMatch ETags the client already holds
      * @return http response containing messages matching the id
      */
     @GetMapping("/messages/{messageId}")
-    public ResponseEntity<?> getMessageById(@PathVariable Integer messageId){
+    public ResponseEntity<?> getMessageById(@PathVariable Long messageId,
+                                            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        String etag = messageVersions.messageTag(messageId);
+        if (ConditionalRequests.notModified(ifNoneMatch, etag)){
+            return ResponseEntity.status(304).eTag(etag).build();
+        }
         Message message = messageService.getMessageById(messageId);
-        return ResponseEntity.status(200).body(message);
+        return ResponseEntity.status(200).eTag(etag).body(message);
     }
 
     /**
      * This endpoint handles the deletion of a message given its Id via a Delete request to /messages/{messageId}
      * 
+     * A message accepted with 202 but not yet written is answered with 409 and Retry-After.
+     * 
      * @param messageId
      * @return http response containing the number of rows updated.
      */
     @DeleteMapping("/messages/{messageId}")
-    public ResponseEntity<?> deleteMessageById(@PathVariable Integer messageId){
-        int rowsUpdated = messageService.deleteMessageById(messageId);
-        if (rowsUpdated > 0){
-            return ResponseEntity.status(200).body(rowsUpdated);
+    public ResponseEntity<?> deleteMessageById(@PathVariable Long messageId){
+        try{
+            int rowsUpdated = messageService.deleteMessageById(messageId);
+            if (rowsUpdated > 0){
+                return ResponseEntity.status(200).body(rowsUpdated);
+            }
+            return ResponseEntity.status(200).body(null);
+        }
+        catch(MessagePendingException e){
+            return ResponseEntity.status(409).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).body(e.getMessage());
+        }
+    }
+
+    /**
+     * This endpoint handles the deletion of many messages given their Ids via a Delete request to /messages?ids=...
+     * 
+     * If any of the messages is not yet written the request is answered with 409 and Retry-After, and nothing is
+     * deleted.
+     * 
+     * @param ids comma separated message ids
+     * @return http response containing the number of rows updated.
+     */
+    @DeleteMapping("/messages")
+    public ResponseEntity<?> deleteMessagesByIds(@RequestParam List<Long> ids){
+        try{
+            int rowsUpdated = messageService.deleteMessagesByIds(ids);
+            if (rowsUpdated > 0){
+                return ResponseEntity.status(200).body(rowsUpdated);
+            }
+            return ResponseEntity.status(200).body(null);
+        }
+        catch(MessagePendingException e){
+            return ResponseEntity.status(409).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).body(e.getMessage());
         }
-        return ResponseEntity.status(200).body(null);
     }
 
     /**
      * This endpoint handles the updating of a message given its Id via a Patch request to /messages/{messageId}
+     * When a session token is sent only messages posted by the logged in account are updated. A message accepted
+     * with 202 but not yet written is answered with 409 and Retry-After.
      * 
      * @param messageId
      * @param message
+     * @param sessionAccountId account resolved from the session token, if any
      * @return http response containing the number of rows updated.
      */
     @PatchMapping("/messages/{messageId}")
-    public ResponseEntity<?> updateMessageById(@PathVariable Integer messageId, @RequestBody Message message){
+    public ResponseEntity<?> updateMessageById(@PathVariable Long messageId, @RequestBody Message message,
+                                               @RequestAttribute(name = SessionFilter.ACCOUNT_ID, required = false) Long sessionAccountId){
         try{
-            int rowsUpdated = messageService.updateMessageById(messageId, message);
+            int rowsUpdated = sessionAccountId == null
+                    ? messageService.updateMessageById(messageId, message)
+                    : messageService.updateMessageByIdAs(sessionAccountId, messageId, message);
             if (rowsUpdated > 0){
                 return ResponseEntity.status(200).body(rowsUpdated);
             }
@@ -143,11 +337,150 @@ public class SocialMediaController {
         catch(MessageCreationException e){
             return ResponseEntity.status(400).body(e.getMessage());
         }
+        catch(MessagePendingException e){
+            return ResponseEntity.status(409).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).body(e.getMessage());
+        }
     }
 
+    /**
+     * This endpoint handles the retrival of all messages posted by an account via a GET to
+     * /accounts/{accountId}/messages. Pagination and time ranges work the same way as for /messages, and so do
+     * ETags, which change with the messages of the account.
+     * 
+     * @param accountId
+     * @param limit maximum number of messages to return, at least 1
+     * @param after cursor returned with the previous page
+     * @param since earliest timePostedEpoch to return
+     * @param until timePostedEpoch before which messages are returned
+     * @param ifNoneMatch ETags the client already holds
+     * @return http response containing list of messages posted by the account
+     */
     @GetMapping("/accounts/{accountId}/messages")
-    public ResponseEntity<?> getAllMessagesByAccount(@PathVariable Integer accountId){
-        List<Message> messages = messageService.getAllMessagesByAccount(accountId);
-        return ResponseEntity.status(200).body(messages);
+    public ResponseEntity<?> getAllMessagesByAccount(@PathVariable Long accountId,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(required = false) String after,
+                                                     @RequestParam(required = false) Long since,
+                                                     @RequestParam(required = false) Long until,
+                                                     @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        String etag = messageVersions.accountTag(accountId);
+        if (ConditionalRequests.notModified(ifNoneMatch, etag)){
+            return ResponseEntity.status(304).eTag(etag).build();
+        }
+        if (limit == null && after == null && since == null && until == null){
+            List<Message> messages = messageService.getAllMessagesByAccount(accountId);
+            return ResponseEntity.status(200).eTag(etag).body(messages);
+        }
+        try{
+            return pageResponse(messageService.getMessagesPageByAccount(accountId, limit, after, since, until), etag);
+        }
+        catch(InvalidCursorException e){
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    /**
+     * This endpoint handles the deletion of every message posted by an account via a Delete request to
+     * /accounts/{accountId}/messages. While any message of the account is not yet written the request is answered
+     * with 409 and Retry-After, and nothing is deleted.
+     * 
+     * @param accountId
+     * @return http response containing the number of rows updated.
+     */
+    @DeleteMapping("/accounts/{accountId}/messages")
+    public ResponseEntity<?> deleteMessagesByAccount(@PathVariable Long accountId){
+        try{
+            int rowsUpdated = messageService.deleteMessagesByAccount(accountId);
+            if (rowsUpdated > 0){
+                return ResponseEntity.status(200).body(rowsUpdated);
+            }
+            return ResponseEntity.status(200).body(null);
+        }
+        catch(MessagePendingException e){
+            return ResponseEntity.status(409).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).body(e.getMessage());
+        }
+    }
+
+    /**
+     * This endpoint makes one account follow another via a PUT to /accounts/{accountId}/following/{followeeId}.
+     * When a session token is sent it must belong to the following account.
+     * 
+     * @param accountId following account
+     * @param followeeId account to follow
+     * @param sessionAccountId account resolved from the session token, if any
+     * @return http response with no body
+     */
+    @PutMapping("/accounts/{accountId}/following/{followeeId}")
+    public ResponseEntity<?> follow(@PathVariable Long accountId, @PathVariable Long followeeId,
+                                    @RequestAttribute(name = SessionFilter.ACCOUNT_ID, required = false) Long sessionAccountId){
+        if (sessionAccountId != null && !sessionAccountId.equals(accountId)){
+            return ResponseEntity.status(403).body(null);
+        }
+        try{
+            feedService.follow(accountId, followeeId);
+            return ResponseEntity.status(200).body(null);
+        }
+        catch(FollowException e){
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    /**
+     * This endpoint makes one account stop following another via a Delete request to
+     * /accounts/{accountId}/following/{followeeId}. When a session token is sent it must belong to the
+     * following account.
+     * 
+     * @param accountId following account
+     * @param followeeId account to stop following
+     * @param sessionAccountId account resolved from the session token, if any
+     * @return http response containing the number of rows updated.
+     */
+    @DeleteMapping("/accounts/{accountId}/following/{followeeId}")
+    public ResponseEntity<?> unfollow(@PathVariable Long accountId, @PathVariable Long followeeId,
+                                      @RequestAttribute(name = SessionFilter.ACCOUNT_ID, required = false) Long sessionAccountId){
+        if (sessionAccountId != null && !sessionAccountId.equals(accountId)){
+            return ResponseEntity.status(403).body(null);
+        }
+        int rowsUpdated = feedService.unfollow(accountId, followeeId);
+        if (rowsUpdated > 0){
+            return ResponseEntity.status(200).body(rowsUpdated);
+        }
+        return ResponseEntity.status(200).body(null);
+    }
+
+    /**
+     * This endpoint handles the retrival of an account's home feed, the messages of every account it follows,
+     * via a GET to /accounts/{accountId}/feed. One page is returned, newest first, and the cursor of the next
+     * page is sent in the X-Next-Cursor header.
+     * 
+     * @param accountId
+     * @param limit maximum number of messages to return, at least 1
+     * @param after cursor returned with the previous page
+     * @return http response containing one page of the feed
+     */
+    @GetMapping("/accounts/{accountId}/feed")
+    public ResponseEntity<?> getFeed(@PathVariable Long accountId,
+                                     @RequestParam(required = false) Integer limit,
+                                     @RequestParam(required = false) String after){
+        try{
+            return pageResponse(feedService.getFeed(accountId, limit, after));
+        }
+        catch(InvalidCursorException e){
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    private static ResponseEntity<?> pageResponse(MessagePage page){
+        return pageResponse(page, null);
+    }
+
+    private static ResponseEntity<?> pageResponse(MessagePage page, String etag){
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(200);
+        if (etag != null){
+            response.eTag(etag);
+        }
+        if (page.getNextCursor() != null){
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getMessages());
     }
 }
@@ -0,0 +1,35 @@
+package com.example.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+
+import com.example.util.VirtualThreads;
+
+/**
+ * With app.threads.virtual=true every request, and the @Transactional service calls it makes, runs on its own
+ * virtual thread instead of a thread of Tomcat's fixed pool, so requests blocked on JDBC no longer use up the
+ * pool. Concurrency is then bounded by server.tomcat.max-connections, while database work is bounded separately
+ * by the Hikari pool size. Needs Java 21 or later; startup fails on older JDKs.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.threads.virtual", havingValue = "true")
+public class VirtualThreadConfiguration {
+    private final ExecutorService requestExecutor = VirtualThreads.newThreadPerTaskExecutor("http-virtual-");
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(){
+        return protocolHandler -> protocolHandler.setExecutor(requestExecutor);
+    }
+
+    /**
+     * Tomcat only shuts down executors it created itself.
+     */
+    @PreDestroy
+    public void shutdown(){
+        requestExecutor.shutdown();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+
+/**
+ * Debug mode, enabled by app.debug.query-count: counts the statements each request runs, logs the count and
+ * sends it in the X-Query-Count header. A request that runs the same statement more than
+ * app.debug.query-count.repeat-threshold times is logged as a warning, since that is the usual shape of an N+1.
+ *
+ * The header is added when the response starts to be written, so a count includes everything the handler ran
+ * but not statements run afterwards, such as lazy loads during serialization.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Profile("!reactive")
+@ConditionalOnProperty(name = "app.debug.query-count", havingValue = "true")
+public class QueryCountFilter extends OncePerRequestFilter {
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    private static final Logger log = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    private final int repeatThreshold;
+
+    @Autowired
+    public QueryCountFilter(@Value("${app.debug.query-count.repeat-threshold}") int repeatThreshold){
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException{
+        QueryCounter.start();
+        CountingResponse countingResponse = new CountingResponse(response);
+        try{
+            chain.doFilter(request, countingResponse);
+        }
+        finally{
+            countingResponse.addCountHeader();
+            QueryCounter.Counts counts = QueryCounter.stop();
+            log.info("{} {} ran {} queries", request.getMethod(), request.getRequestURI(), counts.getTotal());
+            Map.Entry<String, Integer> mostRepeated = counts.mostRepeated();
+            if (mostRepeated != null && mostRepeated.getValue() > repeatThreshold){
+                log.warn("{} {} ran the same statement {} times, possible N+1: {}", request.getMethod(),
+                        request.getRequestURI(), mostRepeated.getValue(), mostRepeated.getKey());
+            }
+        }
+    }
+
+    /**
+     * Adds the header with the count so far just before the response is committed.
+     */
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+        private boolean headerAdded;
+
+        CountingResponse(HttpServletResponse response){
+            super(response);
+        }
+
+        void addCountHeader(){
+            if (!headerAdded && !isCommitted()){
+                headerAdded = true;
+                setIntHeader(QUERY_COUNT_HEADER, QueryCounter.current().getTotal());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException{
+            addCountHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException{
+            addCountHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException{
+            addCountHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException{
+            addCountHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException{
+            addCountHeader();
+            super.sendError(sc);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.datasource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+/**
+ * Counts the statements the current thread sends through the data source between start and stop. A JDBC batch
+ * is one statement, since it is one round trip. Threads that have not called start are not counted, so the
+ * listener costs a thread local lookup per statement when nothing is being measured.
+ */
+public class QueryCounter implements QueryExecutionListener {
+    private static final ThreadLocal<Counts> COUNTS = new ThreadLocal<>();
+
+    /**
+     * Statements run by one thread since start, in total and by SQL text.
+     */
+    public static final class Counts {
+        private int total;
+        private final Map<String, Integer> bySql = new HashMap<>();
+
+        private void add(List<QueryInfo> queries){
+            total++;
+            for (QueryInfo query : queries){
+                bySql.merge(query.getQuery(), 1, Integer::sum);
+            }
+        }
+
+        public int getTotal(){
+            return total;
+        }
+
+        /**
+         * @return the statement run most often and how often, or null if nothing ran
+         */
+        public Map.Entry<String, Integer> mostRepeated(){
+            Map.Entry<String, Integer> most = null;
+            for (Map.Entry<String, Integer> entry : bySql.entrySet()){
+                if (most == null || entry.getValue() > most.getValue()){
+                    most = entry;
+                }
+            }
+            return most;
+        }
+    }
+
+    /**
+     * Start counting the current thread's statements from zero.
+     */
+    public static void start(){
+        COUNTS.set(new Counts());
+    }
+
+    /**
+     * @return statements run by the current thread since start, or null if it is not being counted
+     */
+    public static Counts current(){
+        return COUNTS.get();
+    }
+
+    /**
+     * Stop counting the current thread's statements.
+     * @return statements run since start, or null if it was not being counted
+     */
+    public static Counts stop(){
+        Counts counts = COUNTS.get();
+        COUNTS.remove();
+        return counts;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList){
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList){
+        Counts counts = COUNTS.get();
+        if (counts != null){
+            counts.add(queryInfoList);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.datasource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import javax.sql.DataSource;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Wraps the data source the application uses, whichever configuration declared it, so that QueryCounter sees
+ * every statement sent by JPA and by JdbcTemplate. Only the bean named dataSource is wrapped: with a replica it
+ * routes to the two pools, which would otherwise be counted a second time. Like QueryCountFilter it only exists
+ * in query count debug mode, so statements outside that mode never pass through the proxy.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.debug.query-count", havingValue = "true")
+public class QueryCountingConfiguration {
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor(){
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName){
+                if (DATA_SOURCE_BEAN.equals(beanName) && bean instanceof DataSource){
+                    return ProxyDataSourceBuilder.create((DataSource) bean)
+                            .name(DATA_SOURCE_BEAN)
+                            .listener(new QueryCounter())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary.
+ *
+ * The replica may trail the primary by up to the configured lag, so for that long after a write commits every
+ * read goes to the primary too; a client that reads straight after writing then sees its own write. The routing
+ * key is taken when a connection is first needed, which must be after the transaction has started, so this data
+ * source has to be wrapped in a LazyConnectionDataSourceProxy.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    enum Route { PRIMARY, REPLICA }
+
+    private final long maxLagMillis;
+    private final Clock clock;
+    private volatile long lastWriteAt = Long.MIN_VALUE / 2;
+
+    /**
+     * @param primary data source taking writes
+     * @param replica data source taking read-only transactions
+     * @param maxLag how far the replica may trail the primary
+     */
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag){
+        this(primary, replica, maxLag, Clock.systemUTC());
+    }
+
+    ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag, Clock clock){
+        this.maxLagMillis = maxLag.toMillis();
+        this.clock = clock;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey(){
+        long now = clock.millis();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()){
+            return now - lastWriteAt < maxLagMillis ? Route.PRIMARY : Route.REPLICA;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()){
+            lastWriteAt = now;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization(){
+                @Override
+                public void afterCompletion(int status){
+                    lastWriteAt = clock.millis();
+                }
+            });
+        }
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.dto;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one message within a batch submission. Successful items carry the persisted message, failed items
+ * carry the reason, and the status mirrors what the single-message endpoint would have returned.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+    private final int index;
+    private final int status;
+    private final Message message;
+    private final String error;
+
+    private BatchItemResult(int index, int status, Message message, String error){
+        this.index = index;
+        this.status = status;
+        this.message = message;
+        this.error = error;
+    }
+
+    public static BatchItemResult created(int index, Message message){
+        return new BatchItemResult(index, 200, message, null);
+    }
+
+    public static BatchItemResult failed(int index, String error){
+        return new BatchItemResult(index, 400, null, error);
+    }
+
+    /**
+     * @return position of the message in the submitted array
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
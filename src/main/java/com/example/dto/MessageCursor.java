@@ -0,0 +1,114 @@
+package com.example.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.example.entity.Message;
+import com.example.exception.InvalidCursorException;
+
+/**
+ * An opaque position within the (timePostedEpoch, messageId) ordering of messages.
+ *
+ * Messages posted without a timePostedEpoch are ordered, and filtered by time, as if posted at Long.MIN_VALUE: they
+ * come after every dated message, newest id first. Clients only ever see the encoded form, so the layout can change
+ * without breaking them.
+ */
+public class MessageCursor {
+    private static final String VERSION = "v1";
+
+    /**
+     * The cursor for the first page, positioned after every possible message.
+     */
+    public static final MessageCursor START = new MessageCursor(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final long timePostedEpoch;
+    private final long messageId;
+
+    public MessageCursor(long timePostedEpoch, long messageId){
+        this.timePostedEpoch = timePostedEpoch;
+        this.messageId = messageId;
+    }
+
+    /**
+     * Build the cursor pointing just past the given message.
+     * @param message last message of a page
+     * @return cursor for the following page
+     */
+    public static MessageCursor after(Message message){
+        return new MessageCursor(timeOf(message), message.getMessageId());
+    }
+
+    /**
+     * @param message
+     * @return timePostedEpoch of the message, or Long.MIN_VALUE if it has none
+     */
+    public static long timeOf(Message message){
+        Long time = message.getTimePostedEpoch();
+        return time == null ? Long.MIN_VALUE : time;
+    }
+
+    /**
+     * @param message
+     * @return true if the message comes after this position, newest first, and so belongs on a following page
+     */
+    public boolean precedes(Message message){
+        long time = timeOf(message);
+        return time < timePostedEpoch || (time == timePostedEpoch && message.getMessageId() < messageId);
+    }
+
+    /**
+     * Messages without a timePostedEpoch are read by their own seek query, on messageId alone.
+     * @return messageId the next message without a timePostedEpoch must be below
+     */
+    public long undatedMessageIdBound(){
+        return timePostedEpoch == Long.MIN_VALUE ? messageId : Long.MAX_VALUE;
+    }
+
+    /**
+     * Restrict this cursor to messages posted before the given time.
+     * @param until exclusive upper bound on timePostedEpoch
+     * @return this cursor, or the position before every message posted at or after until if that comes first
+     */
+    public MessageCursor before(long until){
+        if (timePostedEpoch < until){
+            return this;
+        }
+        return new MessageCursor(until, Long.MIN_VALUE);
+    }
+
+    /**
+     * Decode a cursor previously produced by encode().
+     * @param encoded cursor as sent by the client
+     * @return decoded cursor
+     * @throws InvalidCursorException
+     */
+    public static MessageCursor decode(String encoded) throws InvalidCursorException{
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(":");
+            if (parts.length != 3 || !parts[0].equals(VERSION)){
+                throw new InvalidCursorException("Cursor is not valid.");
+            }
+            return new MessageCursor(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        }
+        catch(IllegalArgumentException e){
+            throw new InvalidCursorException("Cursor is not valid.");
+        }
+    }
+
+    /**
+     * @return url-safe string representation of this cursor
+     */
+    public String encode(){
+        String raw = VERSION + ":" + timePostedEpoch + ":" + messageId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public long getTimePostedEpoch() {
+        return timePostedEpoch;
+    }
+
+    public long getMessageId() {
+        return messageId;
+    }
+}
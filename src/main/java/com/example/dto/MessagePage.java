@@ -0,0 +1,32 @@
+package com.example.dto;
+
+import java.util.List;
+
+import com.example.entity.Message;
+
+/**
+ * A single page of messages along with the cursor needed to fetch the next one.
+ */
+public class MessagePage {
+    private final List<Message> messages;
+    private final String nextCursor;
+
+    public MessagePage(List<Message> messages, String nextCursor){
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return messages on this page, newest first
+     */
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    /**
+     * @return encoded cursor for the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
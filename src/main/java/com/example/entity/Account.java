@@ -1,6 +1,8 @@
 package com.example.entity;
 
 import javax.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 /**
  * This is a class that models an Account.
@@ -15,8 +17,13 @@ public class Account {
      */
     @Column(name="accountId")
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
-    private Integer accountId;
+    @GeneratedValue(generator = "account-id")
+    @GenericGenerator(name = "account-id", strategy = "com.example.id.ApplicationIdentifierGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "hibernate_sequence"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
+    private Long accountId;
     /**
      * A username for this Account (must be unique and not blank)
      */
@@ -49,7 +56,7 @@ public class Account {
      * @param username
      * @param password
      */
-    public Account(Integer accountId, String username, String password) {
+    public Account(Long accountId, String username, String password) {
         this.accountId = accountId;
         this.username = username;
         this.password = password;
@@ -58,14 +65,14 @@ public class Account {
      * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
      * @return accountId
      */
-    public Integer getAccountId() {
+    public Long getAccountId() {
         return accountId;
     }
     /**
      * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
      * @param accountId
      */
-    public void setAccountId(Integer accountId) {
+    public void setAccountId(Long accountId) {
         this.accountId = accountId;
     }
     /**
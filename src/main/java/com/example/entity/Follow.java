@@ -0,0 +1,72 @@
+package com.example.entity;
+
+import javax.persistence.*;
+
+/**
+ * This is a class that models one account following another.
+ */
+@Entity
+@Table(name="follow")
+@IdClass(FollowId.class)
+public class Follow {
+    /**
+     * The id of the account doing the following.
+     */
+    @Id
+    @Column (name="followerId")
+    private Long followerId;
+    /**
+     * The id of the account being followed.
+     */
+    @Id
+    @Column (name="followeeId")
+    private Long followeeId;
+
+    public Follow(){
+    }
+
+    /**
+     * @param followerId
+     * @param followeeId
+     */
+    public Follow(Long followerId, Long followeeId){
+        this.followerId = followerId;
+        this.followeeId = followeeId;
+    }
+
+    /**
+     * @return followerId
+     */
+    public Long getFollowerId() {
+        return followerId;
+    }
+
+    /**
+     * @param followerId
+     */
+    public void setFollowerId(Long followerId) {
+        this.followerId = followerId;
+    }
+
+    /**
+     * @return followeeId
+     */
+    public Long getFolloweeId() {
+        return followeeId;
+    }
+
+    /**
+     * @param followeeId
+     */
+    public void setFolloweeId(Long followeeId) {
+        this.followeeId = followeeId;
+    }
+
+    @Override
+    public String toString() {
+        return "Follow{" +
+                "followerId=" + followerId +
+                ", followeeId=" + followeeId +
+                '}';
+    }
+}
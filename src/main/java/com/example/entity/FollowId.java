@@ -0,0 +1,49 @@
+package com.example.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Composite primary key of Follow.
+ */
+public class FollowId implements Serializable {
+    private Long followerId;
+    private Long followeeId;
+
+    public FollowId(){
+    }
+
+    /**
+     * @param followerId
+     * @param followeeId
+     */
+    public FollowId(Long followerId, Long followeeId){
+        this.followerId = followerId;
+        this.followeeId = followeeId;
+    }
+
+    public Long getFollowerId() {
+        return followerId;
+    }
+
+    public Long getFolloweeId() {
+        return followeeId;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj){
+            return true;
+        }
+        if (!(obj instanceof FollowId)){
+            return false;
+        }
+        FollowId other = (FollowId) obj;
+        return Objects.equals(followerId, other.followerId) && Objects.equals(followeeId, other.followeeId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(followerId, followeeId);
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.entity;
 
 import javax.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 /**
  * This is a class that models a Message.
@@ -11,17 +13,22 @@ import javax.persistence.*;
 @Table(name="message")
 public class Message {
      /**
-     * An id for this message which will be automatically generated by the database.
+     * An id for this message which will be automatically generated, see ApplicationIdentifierGenerator.
      */
      @Column (name="messageId")
-     @Id @GeneratedValue
-    private Integer messageId;
+     @Id @GeneratedValue(generator = "message-id")
+     @GenericGenerator(name = "message-id", strategy = "com.example.id.ApplicationIdentifierGenerator", parameters = {
+             @Parameter(name = "sequence_name", value = "hibernate_sequence"),
+             @Parameter(name = "increment_size", value = "50"),
+             @Parameter(name = "optimizer", value = "pooled-lo")
+     })
+    private Long messageId;
     /**
      * The id for the user who has posted this message. We will assume that this is provided by the front-end of this
      * application.
      */
     @Column (name="postedBy")
-    private Integer postedBy;
+    private Long postedBy;
     /**
      * The text for this message- eg "this is my first post!". Must be not blank and under 255 characters
      */
@@ -46,7 +53,7 @@ public class Message {
      * @param messageText
      * @param timePostedEpoch
      */
-    public Message(Integer postedBy, String messageText, Long timePostedEpoch) {
+    public Message(Long postedBy, String messageText, Long timePostedEpoch) {
         this.postedBy = postedBy;
         this.messageText = messageText;
         this.timePostedEpoch = timePostedEpoch;
@@ -59,7 +66,7 @@ public class Message {
      * @param messageText
      * @param timePostedEpoch
      */
-    public Message(Integer messageId, Integer postedBy, String messageText, Long timePostedEpoch) {
+    public Message(Long messageId, Long postedBy, String messageText, Long timePostedEpoch) {
         this.messageId = messageId;
         this.postedBy = postedBy;
         this.messageText = messageText;
@@ -69,28 +76,28 @@ public class Message {
      * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
      * @return messageId
      */
-    public Integer getMessageId() {
+    public Long getMessageId() {
         return messageId;
     }
     /**
      * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
      * @param messageId
      */
-    public void setMessageId(Integer messageId) {
+    public void setMessageId(Long messageId) {
         this.messageId = messageId;
     }
     /**
      * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
      * @return postedBy
      */
-    public Integer getPostedBy() {
+    public Long getPostedBy() {
         return postedBy;
     }
     /**
      * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
      * @param postedBy
      */
-    public void setPostedBy(Integer postedBy) {
+    public void setPostedBy(Long postedBy) {
         this.postedBy = postedBy;
     }
     /**
@@ -0,0 +1,10 @@
+package com.example.exception;
+
+/**
+ * This exception is to be used when a follow relationship cannot be created.
+ */
+public class FollowException extends Exception{
+    public FollowException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.exception;
+
+/**
+ * This exception is to be used when an authenticated account attempts an action on behalf of another account.
+ */
+public class ForbiddenActionException extends Exception{
+    public ForbiddenActionException(String message){
+        super(message);
+    }
+}
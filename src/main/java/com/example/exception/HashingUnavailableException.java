@@ -0,0 +1,10 @@
+package com.example.exception;
+
+/**
+ * This exception is to be used when a password cannot be hashed because the hashing pool is saturated.
+ */
+public class HashingUnavailableException extends Exception{
+    public HashingUnavailableException(String message){
+        super(message);
+    }
+}
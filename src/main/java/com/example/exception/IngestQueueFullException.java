@@ -0,0 +1,10 @@
+package com.example.exception;
+
+/**
+ * This exception is to be used when a message cannot be accepted because the ingestion queue is full.
+ */
+public class IngestQueueFullException extends Exception{
+    public IngestQueueFullException(String message){
+        super(message);
+    }
+}
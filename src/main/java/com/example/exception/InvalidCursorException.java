@@ -0,0 +1,11 @@
+package com.example.exception;
+
+/**
+ * This exception is to be used when a pagination cursor supplied by a client cannot be decoded, or the page size it
+ * asks for is below 1.
+ */
+public class InvalidCursorException extends Exception{
+    public InvalidCursorException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.exception;
+
+/**
+ * This exception is to be used when a search query contains nothing to search for.
+ */
+public class InvalidSearchException extends Exception{
+    public InvalidSearchException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.exception;
+
+/**
+ * This exception is to be used when a message is written to while it is still waiting to be ingested.
+ */
+public class MessagePendingException extends Exception{
+    public MessagePendingException(String message){
+        super(message);
+    }
+}
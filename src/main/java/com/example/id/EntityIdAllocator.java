@@ -0,0 +1,36 @@
+package com.example.id;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Hands out entity ids ahead of the insert, from the same Hibernate generator the entity uses, so that ids
+ * allocated here never collide with ids allocated by a regular save. Under the sequence strategy the pooled-lo
+ * optimizer still only reaches the database once per block of ids.
+ */
+@Component
+public class EntityIdAllocator {
+    private final SessionFactoryImplementor sessionFactory;
+
+    @Autowired
+    public EntityIdAllocator(EntityManagerFactory entityManagerFactory){
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+
+    /**
+     * @param entityClass mapped entity
+     * @return a new id for the entity
+     */
+    public long nextId(Class<?> entityClass){
+        IdentifierGenerator generator = sessionFactory.getMetamodel().entityPersister(entityClass).getIdentifierGenerator();
+        try (Session session = sessionFactory.openSession()){
+            return ((Number) generator.generate((SharedSessionContractImplementor) session, null)).longValue();
+        }
+    }
+}
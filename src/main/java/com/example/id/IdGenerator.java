@@ -0,0 +1,11 @@
+package com.example.id;
+
+/**
+ * Source of entity ids that are allocated in the application rather than by the database.
+ */
+public interface IdGenerator {
+    /**
+     * @return a new id, never handed out before by this generator
+     */
+    long nextId();
+}
@@ -0,0 +1,70 @@
+package com.example.id;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import com.example.entity.Account;
+import com.example.entity.Message;
+
+/**
+ * Selects how entity ids are allocated, using app.id.strategy:
+ * "sequence" (the default) draws them from the database sequence, "snowflake" generates time-ordered ids in the
+ * application using the node id in app.id.node-id.
+ *
+ * Sequence stays the default because a snowflake id is only unique while every running instance has its own
+ * node id, which no default value can guarantee, and because a fresh database then numbers accounts and messages
+ * from 1 as existing clients expect.
+ *
+ * Ids are written to JSON as strings under either strategy: snowflake ids are far above 2^53, where JavaScript
+ * numbers lose precision. Requests may still send ids as numbers.
+ */
+@Configuration
+public class IdGeneratorConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.id.strategy", havingValue = "snowflake")
+    public IdGenerator snowflakeIdGenerator(@Value("${app.id.node-id}") long nodeId){
+        return new SnowflakeIdGenerator(nodeId);
+    }
+
+    /**
+     * Hibernate instantiates its own id generators, so the configured IdGenerator reaches them through the
+     * Hibernate settings.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer idGeneratorCustomizer(ObjectProvider<IdGenerator> idGenerator){
+        return properties -> {
+            IdGenerator generator = idGenerator.getIfAvailable();
+            if (generator != null){
+                properties.put(ApplicationIdentifierGenerator.ID_GENERATOR_SETTING, generator);
+            }
+        };
+    }
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer idSerializationCustomizer(){
+        return builder -> builder
+                .mixIn(Message.class, MessageIds.class)
+                .mixIn(Account.class, AccountIds.class);
+    }
+
+    abstract static class MessageIds {
+        @JsonSerialize(using = ToStringSerializer.class)
+        abstract Long getMessageId();
+
+        @JsonSerialize(using = ToStringSerializer.class)
+        abstract Long getPostedBy();
+    }
+
+    abstract static class AccountIds {
+        @JsonSerialize(using = ToStringSerializer.class)
+        abstract Long getAccountId();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.id;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free, time-ordered 64 bit id generator.
+ *
+ * Layout, from the most significant bit: 1 unused sign bit, 41 bits of milliseconds since EPOCH, 10 bits of node
+ * id and 12 bits of per-millisecond sequence. Ids from one node are strictly increasing. When the sequence of a
+ * millisecond is exhausted, or the clock steps backwards, the generator carries into the next millisecond instead
+ * of waiting, so it never blocks.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+    static final long EPOCH = Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private final Clock clock;
+    /**
+     * Last issued (milliseconds since EPOCH, sequence) pair packed as timestamp << SEQUENCE_BITS | sequence, so
+     * that a single increment moves to the next id and overflows naturally into the next millisecond.
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId){
+        this(nodeId, Clock.systemUTC());
+    }
+
+    SnowflakeIdGenerator(long nodeId, Clock clock){
+        if (nodeId < 0 || nodeId > MAX_NODE_ID){
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ".");
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId(){
+        while (true){
+            long current = state.get();
+            long now = clock.millis() - EPOCH;
+            long next = (now > current >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : current + 1;
+            if (state.compareAndSet(current, next)){
+                return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)
+                        | nodeId << SEQUENCE_BITS
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * @param id produced by any node
+     * @return the instant encoded in the id
+     */
+    public static Instant timestampOf(long id){
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH);
+    }
+}
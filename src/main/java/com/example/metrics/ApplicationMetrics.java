@@ -0,0 +1,145 @@
+package com.example.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import com.example.cache.AccountIdIndex;
+import com.example.cache.AccountTimelineCache;
+import com.example.cache.HomeTimelineCache;
+import com.example.cache.MessageCache;
+import com.example.cache.UsernameFilter;
+import com.example.security.HashingExecutor;
+import com.example.service.FeedService;
+import com.example.service.MessageIngestService;
+import com.example.session.SessionStore;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the counters the caches, filters and executors already keep. Every meter reads its value when it is
+ * scraped, so nothing is added to the request path.
+ */
+@Component
+public class ApplicationMetrics implements MeterBinder {
+    private final MessageCache messageCache;
+    private final AccountTimelineCache timelineCache;
+    private final HomeTimelineCache homeTimelineCache;
+    private final AccountIdIndex accountIdIndex;
+    private final UsernameFilter usernameFilter;
+    private final HashingExecutor hashingExecutor;
+    private final MessageIngestService ingestService;
+    private final FeedService feedService;
+    private final SessionStore sessionStore;
+
+    @Autowired
+    public ApplicationMetrics(MessageCache messageCache, AccountTimelineCache timelineCache,
+                              HomeTimelineCache homeTimelineCache, AccountIdIndex accountIdIndex,
+                              UsernameFilter usernameFilter, HashingExecutor hashingExecutor,
+                              MessageIngestService ingestService, FeedService feedService, SessionStore sessionStore){
+        this.messageCache = messageCache;
+        this.timelineCache = timelineCache;
+        this.homeTimelineCache = homeTimelineCache;
+        this.accountIdIndex = accountIdIndex;
+        this.usernameFilter = usernameFilter;
+        this.hashingExecutor = hashingExecutor;
+        this.ingestService = ingestService;
+        this.feedService = feedService;
+        this.sessionStore = sessionStore;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry){
+        bindCache(registry, "message", messageCache, MessageCache::stats);
+        bindCache(registry, "account-timeline", timelineCache, AccountTimelineCache::stats);
+        bindCache(registry, "home-timeline", homeTimelineCache, HomeTimelineCache::stats);
+
+        counter(registry, "cache.gets", "Existence checks answered by the account id index", accountIdIndex,
+                AccountIdIndex::getHitCount, "cache", "account-ids", "result", "hit");
+        counter(registry, "cache.gets", "Existence checks answered by the account id index", accountIdIndex,
+                AccountIdIndex::getMissCount, "cache", "account-ids", "result", "miss");
+        Gauge.builder("cache.size", accountIdIndex, AccountIdIndex::size)
+                .tags("cache", "account-ids").register(registry);
+
+        counter(registry, "app.username.filter.checks", "Username lookups checked against the filter", usernameFilter,
+                UsernameFilter::getRejectedCount, "result", "rejected");
+        counter(registry, "app.username.filter.checks", "Username lookups checked against the filter", usernameFilter,
+                UsernameFilter::getPassedCount, "result", "passed");
+        counter(registry, "app.username.filter.false.positives", "Usernames let through that did not exist",
+                usernameFilter, UsernameFilter::getFalsePositiveCount);
+        Gauge.builder("app.username.filter.false.positive.rate", usernameFilter, UsernameFilter::getExpectedFalsePositiveRate)
+                .description("Share of unknown usernames the filter lets through").tags("source", "expected")
+                .register(registry);
+        Gauge.builder("app.username.filter.false.positive.rate", usernameFilter, UsernameFilter::getObservedFalsePositiveRate)
+                .description("Share of unknown usernames the filter lets through").tags("source", "observed")
+                .register(registry);
+        Gauge.builder("app.username.filter.stages", usernameFilter, UsernameFilter::getStageCount)
+                .description("Stages chained in the filter since it was last built").register(registry);
+        counter(registry, "app.username.filter.rebuilds", "Builds of the username filter", usernameFilter,
+                UsernameFilter::getRebuildCount);
+
+        counter(registry, "app.password.hashing.tasks", "Password hashing tasks", hashingExecutor,
+                HashingExecutor::getCompletedCount, "result", "completed");
+        counter(registry, "app.password.hashing.tasks", "Password hashing tasks", hashingExecutor,
+                HashingExecutor::getRejectedCount, "result", "rejected");
+        counter(registry, "app.password.hashing.tasks", "Password hashing tasks", hashingExecutor,
+                HashingExecutor::getTimedOutCount, "result", "timed-out");
+        seconds(registry, "app.password.hashing.queued", "Time hashing tasks spent queued", hashingExecutor,
+                executor -> executor.getTotalQueuedTime().toNanos());
+        seconds(registry, "app.password.hashing.busy", "Time spent hashing", hashingExecutor,
+                executor -> executor.getTotalHashingTime().toNanos());
+        Gauge.builder("app.password.hashing.queue.size", hashingExecutor, HashingExecutor::getQueueSize)
+                .description("Hashing tasks waiting for a thread").register(registry);
+
+        counter(registry, "app.ingest.messages", "Messages accepted for write-behind ingestion", ingestService,
+                MessageIngestService::getWrittenCount, "result", "written");
+        counter(registry, "app.ingest.messages", "Messages accepted for write-behind ingestion", ingestService,
+                MessageIngestService::getFailedCount, "result", "failed");
+        counter(registry, "app.ingest.messages", "Messages accepted for write-behind ingestion", ingestService,
+                MessageIngestService::getRejectedCount, "result", "rejected");
+        counter(registry, "app.ingest.batches", "Committed ingestion batches", ingestService,
+                MessageIngestService::getBatchCount);
+        Gauge.builder("app.ingest.queue.size", ingestService, MessageIngestService::getQueueSize)
+                .description("Messages waiting to be written").register(registry);
+
+        counter(registry, "app.feed.fan.out.dropped", "Fan-outs dropped because the queue was full", feedService,
+                FeedService::getDroppedFanOutCount);
+        Gauge.builder("app.sessions", sessionStore, SessionStore::size)
+                .description("Sessions held, including expired ones not yet swept").register(registry);
+    }
+
+    /**
+     * Publishes a Caffeine cache's statistics under the same names Micrometer uses for the caches it binds itself.
+     * Meters only hold their source weakly, so the source is the cache bean rather than a lambda.
+     */
+    private static <T> void bindCache(MeterRegistry registry, String name, T cache, Function<T, CacheStats> stats){
+        counter(registry, "cache.gets", "Cache lookups", cache, c -> stats.apply(c).hitCount(),
+                "cache", name, "result", "hit");
+        counter(registry, "cache.gets", "Cache lookups", cache, c -> stats.apply(c).missCount(),
+                "cache", name, "result", "miss");
+        counter(registry, "cache.evictions", "Cache evictions", cache, c -> stats.apply(c).evictionCount(),
+                "cache", name);
+        counter(registry, "cache.loads", "Cache loads", cache, c -> stats.apply(c).loadSuccessCount(),
+                "cache", name, "result", "success");
+        counter(registry, "cache.loads", "Cache loads", cache, c -> stats.apply(c).loadFailureCount(),
+                "cache", name, "result", "failure");
+        seconds(registry, "cache.load.duration", "Time spent loading cache entries", cache,
+                c -> stats.apply(c).totalLoadTime(), "cache", name);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, String description, T source,
+                                    ToDoubleFunction<T> count, String... tags){
+        FunctionCounter.builder(name, source, count).description(description).tags(tags).register(registry);
+    }
+
+    private static <T> void seconds(MeterRegistry registry, String name, String description, T source,
+                                    ToDoubleFunction<T> nanos, String... tags){
+        FunctionCounter.builder(name, source, value -> nanos.applyAsDouble(value) / TimeUnit.SECONDS.toNanos(1))
+                .description(description).baseUnit("seconds").tags(tags).register(registry);
+    }
+}
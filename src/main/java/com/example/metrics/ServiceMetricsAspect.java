@@ -0,0 +1,53 @@
+package com.example.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Times every public MessageService and AccountService method as app.service.calls, tagged with the class, the
+ * method and the exception thrown, if any. The aspect runs outside the transaction advice so that the time
+ * includes the commit.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceMetricsAspect {
+    static final String METRIC_NAME = "app.service.calls";
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ServiceMetricsAspect(MeterRegistry meterRegistry){
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.example.service.MessageService.*(..))"
+            + " || execution(public * com.example.service.AccountService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable{
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try{
+            return joinPoint.proceed();
+        }
+        catch(Throwable e){
+            exception = e.getClass().getSimpleName();
+            throw e;
+        }
+        finally{
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .description("Time spent in service methods")
+                    .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package com.example.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import com.example.entity.Account;
 
@@ -17,17 +24,49 @@ public interface AccountRepository extends JpaRepository<Account, Long>{
     Optional<Account> findAccountByUsername(String username);
 
     /**
-     * Named query to find an account using username and password.
-     * @param username
-     * @param password
-     * @return account matching both parameters
+     * Replace the stored password hash of an account.
+     * @param accountId
+     * @param password encoded hash
+     * @return number of rows updated
      */
-    Optional<Account> findAccountByUsernameAndPassword(String username, String password);
+    @Modifying
+    @Transactional
+    @Query("update Account a set a.password = :password where a.accountId = :accountId")
+    int updatePassword(@Param("accountId") Long accountId, @Param("password") String password);
 
     /**
      * Named query to find an account using accountId.
      * @param accountId
      * @return account matching the id
      */
-    Optional<Account> getAccountByAccountId(Integer accountId);
+    Optional<Account> getAccountByAccountId(Long accountId);
+
+    /**
+     * Query returning which of the given ids belong to an existing account, in a single round trip.
+     * @param accountIds
+     * @return the subset of accountIds that exist
+     */
+    @Query("select a.accountId from Account a where a.accountId in :accountIds")
+    List<Long> findExistingAccountIds(@Param("accountIds") Collection<Long> accountIds);
+
+    /**
+     * Named query checking that an account exists without loading it.
+     * @param accountId
+     * @return true if an account has this id
+     */
+    boolean existsByAccountId(Long accountId);
+
+    /**
+     * Stream over the id of every account. Must be consumed and closed inside a transaction.
+     * @return stream of account ids
+     */
+    @Query("select a.accountId from Account a")
+    Stream<Long> streamAllAccountIds();
+
+    /**
+     * Stream over the username of every account. Must be consumed and closed inside a transaction.
+     * @return stream of usernames
+     */
+    @Query("select a.username from Account a")
+    Stream<String> streamAllUsernames();
 }
@@ -0,0 +1,50 @@
+package com.example.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
+
+import com.example.entity.Follow;
+import com.example.entity.FollowId;
+
+/**
+ * JPARepository to be accessed by FeedService.java
+ */
+public interface FollowRepository extends JpaRepository<Follow, FollowId>{
+    /**
+     * Retrieve the ids of every account following an account. Served by the (followeeId, followerId) index.
+     * @param followeeId
+     * @return follower ids
+     */
+    @Query("select f.followerId from Follow f where f.followeeId = :followeeId")
+    List<Long> findFollowerIds(@Param("followeeId") Long followeeId);
+
+    /**
+     * Count the followers of an account without loading them. Served by the (followeeId, followerId) index.
+     * @param followeeId
+     * @return number of followers
+     */
+    @Query("select count(f) from Follow f where f.followeeId = :followeeId")
+    long countFollowers(@Param("followeeId") Long followeeId);
+
+    /**
+     * Retrieve every account followed by an account together with its own number of followers.
+     * @param followerId
+     * @return pairs of followee id and follower count
+     */
+    @Query("select f.followeeId, (select count(g) from Follow g where g.followeeId = f.followeeId)"
+            + " from Follow f where f.followerId = :followerId")
+    List<Object[]> findFolloweesWithFollowerCounts(@Param("followerId") Long followerId);
+
+    /**
+     * Remove one follow relationship.
+     * @param followerId
+     * @param followeeId
+     * @return number of rows deleted
+     */
+    @Modifying
+    @Query("delete from Follow f where f.followerId = :followerId and f.followeeId = :followeeId")
+    int deleteFollow(@Param("followerId") Long followerId, @Param("followeeId") Long followeeId);
+}
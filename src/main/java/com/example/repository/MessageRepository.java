@@ -1,7 +1,17 @@
 package com.example.repository;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 import com.example.entity.Message;
@@ -15,19 +25,189 @@ public interface MessageRepository extends JpaRepository<Message, Long>{
      * @param messageId
      * @return message with matching id
      */
-    Optional<Message> findMessageByMessageId(Integer messageId);
+    Optional<Message> findMessageByMessageId(Long messageId);
 
     /**
-     * Deletes message by its id and returns the number of rows updated
+     * Retrieve the poster, and only the poster, of a message.
+     * @param messageId
+     * @return account that posted the message, empty if there is no such message
+     */
+    @Query("select m.postedBy from Message m where m.messageId = :messageId")
+    Optional<Long> findPostedByByMessageId(@Param("messageId") Long messageId);
+
+    /**
+     * Retrieve the posters, and only the posters, of the messages whose id is in the given collection.
+     * @param messageIds
+     * @return pairs of messageId and poster, one per existing message
+     */
+    @Query("select m.messageId, m.postedBy from Message m where m.messageId in :messageIds")
+    List<Object[]> findPostersByMessageIdIn(@Param("messageIds") Collection<Long> messageIds);
+
+    /**
+     * Deletes message by its id and returns the number of rows updated. Runs as a single DELETE statement
+     * rather than loading the entity first.
      * @param messageId
      * @return number of rows updated
      */
-    int deleteMessageByMessageId(Integer messageId);
+    @Modifying
+    @Query("delete from Message m where m.messageId = :messageId")
+    int deleteMessageByMessageId(@Param("messageId") Long messageId);
+
+    /**
+     * Deletes every message whose id is in the given collection in a single DELETE statement.
+     * @param messageIds
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("delete from Message m where m.messageId in :messageIds")
+    int deleteMessagesByMessageIdIn(@Param("messageIds") Collection<Long> messageIds);
+
+    /**
+     * Retrieve the ids, and only the ids, of messages posted by an account.
+     * @param postedBy
+     * @param pageable maximum number of ids to return
+     * @return message ids in ascending order
+     */
+    @Query("select m.messageId from Message m where m.postedBy = :postedBy order by m.messageId")
+    List<Long> findMessageIdsByPostedBy(@Param("postedBy") Long postedBy, Pageable pageable);
+
+    /**
+     * Replaces the text of a message in a single UPDATE statement, without loading it first.
+     * @param messageId
+     * @param messageText new text
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("update Message m set m.messageText = :messageText where m.messageId = :messageId")
+    int updateMessageText(@Param("messageId") Long messageId, @Param("messageText") String messageText);
+
+    /**
+     * Update the text of a message only if it was posted by the given account
+     * @param messageId
+     * @param postedBy
+     * @param messageText new text
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("update Message m set m.messageText = :messageText where m.messageId = :messageId and m.postedBy = :postedBy")
+    int updateMessageTextByPoster(@Param("messageId") Long messageId, @Param("postedBy") Long postedBy, @Param("messageText") String messageText);
 
     /**
      * Retrieve messages by accountId
      * @param postedBy
      * @return list of messages postedBy a particular account.
      */
-    List<Message> findMessagesByPostedBy(Integer postedBy);
+    List<Message> findMessagesByPostedBy(Long postedBy);
+
+    /**
+     * Seek query returning the messages that come after the given (timePostedEpoch, messageId) position and were
+     * posted no earlier than since, newest first. Served by the (timePostedEpoch, messageId) index. The page size
+     * is taken from the pageable, no count query is issued.
+     * @param since earliest timePostedEpoch to include
+     * @param timePostedEpoch of the last message already seen
+     * @param messageId of the last message already seen
+     * @param pageable page size
+     * @return next page of messages
+     */
+    @Query("select m from Message m"
+            + " where m.timePostedEpoch >= :since"
+            + " and m.timePostedEpoch <= :timePostedEpoch"
+            + " and (m.timePostedEpoch < :timePostedEpoch or m.messageId < :messageId)"
+            + " order by m.timePostedEpoch desc, m.messageId desc")
+    List<Message> findMessagesBefore(@Param("since") Long since,
+                                     @Param("timePostedEpoch") Long timePostedEpoch,
+                                     @Param("messageId") Long messageId, Pageable pageable);
+
+    /**
+     * Seek query returning the messages of one account that come after the given (timePostedEpoch, messageId)
+     * position and were posted no earlier than since, newest first. Served by the
+     * (postedBy, timePostedEpoch desc, messageId desc) index.
+     * @param postedBy
+     * @param since earliest timePostedEpoch to include
+     * @param timePostedEpoch of the last message already seen
+     * @param messageId of the last message already seen
+     * @param pageable page size
+     * @return next page of messages posted by the account
+     */
+    @Query("select m from Message m"
+            + " where m.postedBy = :postedBy"
+            + " and m.timePostedEpoch >= :since"
+            + " and m.timePostedEpoch <= :timePostedEpoch"
+            + " and (m.timePostedEpoch < :timePostedEpoch or m.messageId < :messageId)"
+            + " order by m.timePostedEpoch desc, m.messageId desc")
+    List<Message> findMessagesByPostedByBefore(@Param("postedBy") Long postedBy,
+                                               @Param("since") Long since,
+                                               @Param("timePostedEpoch") Long timePostedEpoch,
+                                               @Param("messageId") Long messageId, Pageable pageable);
+
+    /**
+     * Seek query returning the messages of several accounts that come after the given (timePostedEpoch, messageId)
+     * position, newest first.
+     * @param postedBy ids of the posting accounts
+     * @param timePostedEpoch of the last message already seen
+     * @param messageId of the last message already seen
+     * @param pageable page size
+     * @return next page of messages posted by any of the accounts
+     */
+    @Query("select m from Message m"
+            + " where m.postedBy in :postedBy"
+            + " and m.timePostedEpoch <= :timePostedEpoch"
+            + " and (m.timePostedEpoch < :timePostedEpoch or m.messageId < :messageId)"
+            + " order by m.timePostedEpoch desc, m.messageId desc")
+    List<Message> findMessagesByPostedByInBefore(@Param("postedBy") Collection<Long> postedBy,
+                                                 @Param("timePostedEpoch") Long timePostedEpoch,
+                                                 @Param("messageId") Long messageId, Pageable pageable);
+
+    /**
+     * Seek query returning the messages without a timePostedEpoch whose id is below the given one, newest id first.
+     * They come after every dated message, so this continues findMessagesBefore once it runs out.
+     * @param messageId of the last message already seen, or Long.MAX_VALUE
+     * @param pageable page size
+     * @return next page of messages without a timePostedEpoch
+     */
+    @Query("select m from Message m"
+            + " where m.timePostedEpoch is null and m.messageId < :messageId"
+            + " order by m.messageId desc")
+    List<Message> findUndatedMessagesBefore(@Param("messageId") Long messageId, Pageable pageable);
+
+    /**
+     * Seek query returning the messages of one account without a timePostedEpoch whose id is below the given one,
+     * newest id first. Continues findMessagesByPostedByBefore once it runs out.
+     * @param postedBy
+     * @param messageId of the last message already seen, or Long.MAX_VALUE
+     * @param pageable page size
+     * @return next page of the account's messages without a timePostedEpoch
+     */
+    @Query("select m from Message m"
+            + " where m.postedBy = :postedBy and m.timePostedEpoch is null and m.messageId < :messageId"
+            + " order by m.messageId desc")
+    List<Message> findUndatedMessagesByPostedByBefore(@Param("postedBy") Long postedBy,
+                                                      @Param("messageId") Long messageId, Pageable pageable);
+
+    /**
+     * Seek query returning the messages of several accounts without a timePostedEpoch whose id is below the given
+     * one, newest id first. Continues findMessagesByPostedByInBefore once it runs out.
+     * @param postedBy ids of the posting accounts
+     * @param messageId of the last message already seen, or Long.MAX_VALUE
+     * @param pageable page size
+     * @return next page of the accounts' messages without a timePostedEpoch
+     */
+    @Query("select m from Message m"
+            + " where m.postedBy in :postedBy and m.timePostedEpoch is null and m.messageId < :messageId"
+            + " order by m.messageId desc")
+    List<Message> findUndatedMessagesByPostedByInBefore(@Param("postedBy") Collection<Long> postedBy,
+                                                        @Param("messageId") Long messageId, Pageable pageable);
+
+    /**
+     * Forward-only stream over every message in id order. Rows are pulled from the database in chunks of the
+     * fetch size and loaded read-only, so they carry no dirty-checking snapshot. Must be consumed and closed
+     * inside a transaction.
+     * @return stream of all messages
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("select m from Message m order by m.messageId")
+    Stream<Message> streamAllMessages();
 }
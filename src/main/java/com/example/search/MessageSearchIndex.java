@@ -0,0 +1,208 @@
+package com.example.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import com.example.entity.Message;
+import com.example.repository.MessageRepository;
+import com.example.util.PostingList;
+
+/**
+ * In-memory inverted index from the words of message texts to the ids of the messages containing them.
+ *
+ * Words are the runs of letters and digits in a text, lower-cased. The term dictionary is sorted so that a prefix
+ * query reads one contiguous range of it, and each term maps to a compressed posting list. The terms of every
+ * indexed message are also kept, so that an update or delete only touches the posting lists of that message.
+ * The index is filled from the message table once the application is ready and then kept up to date by
+ * MessageService after each committed write; indexing a message is idempotent.
+ */
+@Component
+public class MessageSearchIndex {
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern QUERY_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}*]+");
+    private static final String PREFIX_WILDCARD = "*";
+
+    private final MessageRepository messageRepository;
+    private final ConcurrentSkipListMap<String, PostingList> postings = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Long, String[]> termsByMessage = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MessageSearchIndex(MessageRepository messageRepository){
+        this.messageRepository = messageRepository;
+    }
+
+    /**
+     * Index every message in the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load(){
+        try (Stream<Message> messages = messageRepository.streamAllMessages()){
+            messages.forEach(this::messagePosted);
+        }
+    }
+
+    public void messagePosted(Message message){
+        messageUpdated(message.getMessageId(), message.getMessageText());
+    }
+
+    /**
+     * @param messageId
+     * @param messageText new text of the message
+     */
+    public void messageUpdated(long messageId, String messageText){
+        String[] terms = terms(messageText);
+        termsByMessage.compute(messageId, (id, previousTerms) -> {
+            Set<String> kept = new LinkedHashSet<>(Arrays.asList(terms));
+            if (previousTerms != null){
+                for (String term : previousTerms){
+                    if (!kept.remove(term)){
+                        removePosting(term, messageId);
+                    }
+                }
+            }
+            for (String term : kept){
+                postings.compute(term, (t, list) -> (list == null ? PostingList.EMPTY : list).with(messageId));
+            }
+            return terms;
+        });
+    }
+
+    /**
+     * @param messageIds
+     */
+    public void messagesDeleted(Collection<Long> messageIds){
+        for (Long messageId : messageIds){
+            termsByMessage.computeIfPresent(messageId, (id, terms) -> {
+                for (String term : terms){
+                    removePosting(term, messageId);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Find the messages containing every word of the query. A word ending in * matches any word it is a prefix of.
+     * @param query
+     * @param limit maximum number of ids to return
+     * @return ids of matching messages, highest first
+     */
+    public List<Long> search(String query, int limit){
+        List<long[]> matches = new ArrayList<>();
+        for (String token : QUERY_SEPARATOR.split(query.toLowerCase(Locale.ROOT))){
+            boolean prefix = token.endsWith(PREFIX_WILDCARD);
+            String term = token.replace(PREFIX_WILDCARD, "");
+            if (term.isEmpty()){
+                continue;
+            }
+            matches.add(prefix ? prefixMatches(term) : exactMatches(term));
+        }
+        if (matches.isEmpty()){
+            return List.of();
+        }
+        matches.sort(Comparator.comparingInt(ids -> ids.length));
+        long[] result = matches.get(0);
+        for (int i = 1; i < matches.size() && result.length > 0; i++){
+            result = intersect(result, matches.get(i));
+        }
+        List<Long> ids = new ArrayList<>(Math.min(limit, result.length));
+        for (int i = result.length - 1; i >= 0 && ids.size() < limit; i--){
+            ids.add(result[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * @param query
+     * @return true if the query contains at least one word
+     */
+    public static boolean hasTerms(String query){
+        return query != null
+                && QUERY_SEPARATOR.splitAsStream(query).anyMatch(token -> !token.replace(PREFIX_WILDCARD, "").isEmpty());
+    }
+
+    /**
+     * @return number of distinct terms
+     */
+    public int termCount(){
+        return postings.size();
+    }
+
+    /**
+     * @return number of indexed messages
+     */
+    public int size(){
+        return termsByMessage.size();
+    }
+
+    private long[] exactMatches(String term){
+        PostingList list = postings.get(term);
+        return list == null ? new long[0] : list.toArray();
+    }
+
+    private long[] prefixMatches(String prefix){
+        ConcurrentNavigableMap<String, PostingList> range = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+        if (range.size() == 1){
+            return range.values().iterator().next().toArray();
+        }
+        return range.values().stream()
+                .flatMapToLong(list -> LongStream.of(list.toArray()))
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    private void removePosting(String term, long messageId){
+        postings.computeIfPresent(term, (t, list) -> {
+            PostingList remaining = list.without(messageId);
+            return remaining.isEmpty() ? null : remaining;
+        });
+    }
+
+    private static String[] terms(String text){
+        if (text == null){
+            return new String[0];
+        }
+        return WORD_SEPARATOR.splitAsStream(text.toLowerCase(Locale.ROOT))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    private static long[] intersect(long[] a, long[] b){
+        long[] result = new long[Math.min(a.length, b.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ){
+            if (a[i] < b[j]){
+                i++;
+            }
+            else if (a[i] > b[j]){
+                j++;
+            }
+            else{
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.example.exception.HashingUnavailableException;
+
+/**
+ * Fixed size pool that runs password hashing off the request threads.
+ *
+ * The pool has a bounded queue and no caller-runs fallback: when the queue is full a task is refused straight
+ * away, and a task that does not finish within the timeout is abandoned, so a login spike turns into fast 503s
+ * instead of tying up the request threads that serve reads and posts. Time spent queued and time spent hashing
+ * are recorded per task.
+ */
+@Component
+public class HashingExecutor {
+    private final ThreadPoolExecutor executor;
+    private final long timeoutNanos;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder queuedNanos = new LongAdder();
+    private final LongAdder hashingNanos = new LongAdder();
+
+    @Autowired
+    public HashingExecutor(@Value("${app.password.hashing.threads}") int threads,
+                           @Value("${app.password.hashing.queue-capacity}") int queueCapacity,
+                           @Value("${app.password.hashing.timeout}") Duration timeout){
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new HashingThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Run a hashing task and wait for its result.
+     * @param task
+     * @return result of the task
+     * @throws HashingUnavailableException if the queue is full or the task did not finish in time
+     */
+    public <T> T run(Callable<T> task) throws HashingUnavailableException{
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try{
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                queuedNanos.add(started - submitted);
+                try{
+                    return task.call();
+                }
+                finally{
+                    hashingNanos.add(System.nanoTime() - started);
+                    completed.increment();
+                }
+            });
+        }
+        catch(RejectedExecutionException e){
+            rejected.increment();
+            throw new HashingUnavailableException("Too many logins in progress, try again shortly.");
+        }
+        try{
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        catch(TimeoutException e){
+            future.cancel(false);
+            timedOut.increment();
+            throw new HashingUnavailableException("Too many logins in progress, try again shortly.");
+        }
+        catch(InterruptedException e){
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new HashingUnavailableException("Login was interrupted.");
+        }
+        catch(ExecutionException e){
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException){
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return number of hashing tasks that ran
+     */
+    public long getCompletedCount(){
+        return completed.sum();
+    }
+
+    /**
+     * @return number of hashing tasks refused because the queue was full
+     */
+    public long getRejectedCount(){
+        return rejected.sum();
+    }
+
+    /**
+     * @return number of hashing tasks abandoned after the timeout
+     */
+    public long getTimedOutCount(){
+        return timedOut.sum();
+    }
+
+    /**
+     * @return total time tasks spent waiting in the queue
+     */
+    public Duration getTotalQueuedTime(){
+        return Duration.ofNanos(queuedNanos.sum());
+    }
+
+    /**
+     * @return total time spent hashing
+     */
+    public Duration getTotalHashingTime(){
+        return Duration.ofNanos(hashingNanos.sum());
+    }
+
+    /**
+     * @return number of tasks currently waiting for a thread
+     */
+    public int getQueueSize(){
+        return executor.getQueue().size();
+    }
+
+    private static final class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable){
+            Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
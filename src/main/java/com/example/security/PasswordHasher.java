@@ -0,0 +1,126 @@
+package com.example.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * PBKDF2-HMAC-SHA256 password hashing.
+ *
+ * Hashes are stored as "pbkdf2$iterations$salt$hash" with base64 salt and hash, so the cost can be raised without
+ * invalidating existing hashes. Stored values that do not parse as such a hash, including ones that only start
+ * with the prefix, are legacy plaintext passwords; they still verify and are reported as needing a rehash, as are
+ * hashes made with fewer iterations than currently configured.
+ * Hashing is deliberately slow and should run on the HashingExecutor rather than on a request thread.
+ */
+@Component
+public class PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    public PasswordHasher(@Value("${app.password.iterations}") int iterations){
+        this.iterations = iterations;
+    }
+
+    /**
+     * @param password plaintext
+     * @return encoded hash of the password with a new random salt
+     */
+    public String hash(String password){
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return encode(iterations, salt, derive(password, salt, iterations));
+    }
+
+    /**
+     * @param password plaintext
+     * @param stored encoded hash, or a legacy plaintext password
+     * @return true if the password matches
+     */
+    public boolean matches(String password, String stored){
+        Encoded encoded = parse(stored);
+        if (encoded == null){
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        return MessageDigest.isEqual(encoded.hash, derive(password, encoded.salt, encoded.iterations));
+    }
+
+    /**
+     * @param stored encoded hash, or a legacy plaintext password
+     * @return true if the stored value is plaintext or was hashed with fewer iterations than configured
+     */
+    public boolean needsRehash(String stored){
+        Encoded encoded = parse(stored);
+        return encoded == null || encoded.iterations < iterations;
+    }
+
+    /**
+     * @return the decoded hash, or null if the stored value is not a well-formed hash and so is legacy plaintext
+     */
+    private static Encoded parse(String stored){
+        if (!stored.startsWith(PREFIX + "$")){
+            return null;
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4){
+            return null;
+        }
+        try{
+            Base64.Decoder decoder = Base64.getDecoder();
+            int iterations = Integer.parseInt(parts[1]);
+            byte[] salt = decoder.decode(parts[2]);
+            byte[] hash = decoder.decode(parts[3]);
+            if (iterations < 1 || salt.length == 0 || hash.length != HASH_BITS / 8){
+                return null;
+            }
+            return new Encoded(iterations, salt, hash);
+        }
+        catch(IllegalArgumentException e){
+            //Also covers NumberFormatException
+            return null;
+        }
+    }
+
+    private static String encode(int iterations, byte[] salt, byte[] hash){
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations){
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try{
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        }
+        catch(GeneralSecurityException e){
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+        finally{
+            spec.clearPassword();
+        }
+    }
+
+    private static class Encoded {
+        private final int iterations;
+        private final byte[] salt;
+        private final byte[] hash;
+
+        Encoded(int iterations, byte[] salt, byte[] hash){
+            this.iterations = iterations;
+            this.salt = salt;
+            this.hash = hash;
+        }
+    }
+}
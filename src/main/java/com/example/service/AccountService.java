@@ -1,15 +1,23 @@
 package com.example.service;
 
-import javax.transaction.Transactional;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.SQLException;
 import java.util.Optional;
 
+import com.example.cache.AccountIdIndex;
+import com.example.cache.UsernameFilter;
 import com.example.entity.Account;
 import com.example.repository.AccountRepository;
+import com.example.security.HashingExecutor;
+import com.example.security.PasswordHasher;
 import com.example.exception.DuplicateUsernameException;
 import com.example.exception.RegistrationException;
 import com.example.exception.AccountDoesNotExistException;
+import com.example.exception.HashingUnavailableException;
 
 /**
  * This class is responsible for calling methods on the AccountRepository to make persistant changes to the database.
@@ -17,24 +25,44 @@ import com.example.exception.AccountDoesNotExistException;
 @Service
 @Transactional
 public class AccountService {
+    /**
+     * SQLSTATE reported for a unique constraint violation.
+     */
+    static final String UNIQUE_VIOLATION = "23505";
+
     private final AccountRepository accountRepository;
+    private final AccountIdIndex accountIdIndex;
+    private final UsernameFilter usernameFilter;
+    private final PasswordHasher passwordHasher;
+    private final HashingExecutor hashingExecutor;
 
     @Autowired
-    public AccountService(AccountRepository accountRepository){
+    public AccountService(AccountRepository accountRepository, AccountIdIndex accountIdIndex, UsernameFilter usernameFilter,
+                          PasswordHasher passwordHasher, HashingExecutor hashingExecutor){
         this.accountRepository = accountRepository;
+        this.accountIdIndex = accountIdIndex;
+        this.usernameFilter = usernameFilter;
+        this.passwordHasher = passwordHasher;
+        this.hashingExecutor = hashingExecutor;
     }
 
     //Service methods
 
     /**
      * Persist and return a new account if the provided input is valid.
+     * Registration is a single INSERT: duplicates are detected by the unique constraint on username rather than
+     * by a prior lookup, which also closes the race between two concurrent registrations of the same name. The
+     * method runs outside the class transaction so that a rejected insert rolls back on its own, and so that no
+     * connection is held while the password is hashed on the hashing pool.
      * 
      * @param account to be added
-     * @return fully formed account once persisted
+     * @return fully formed account once persisted, carrying the submitted password rather than its hash
      * @throws DuplicateUsernameException
      * @throws RegistrationException
+     * @throws HashingUnavailableException if the hashing pool is saturated
      */
-    public Account registerAccount(Account account) throws DuplicateUsernameException, RegistrationException{
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Account registerAccount(Account account) throws DuplicateUsernameException, RegistrationException, HashingUnavailableException{
         //Input validation
         if (account.getUsername().isBlank()){
             throw new RegistrationException("Username cannot be blank.");
@@ -42,26 +70,62 @@ public class AccountService {
         if (account.getPassword().length() < 4){
             throw new RegistrationException("Password must be 4 or more characters long.");
         }
-        if (accountRepository.findAccountByUsername(account.getUsername()).isPresent()){
-            throw new DuplicateUsernameException("Username already exists.");
-        }
 
-        //Input is valid
-        return accountRepository.save(new Account(account.getUsername(), account.getPassword()));
+        //Input is valid, the unique constraint on username rejects duplicates
+        String passwordHash = hashingExecutor.run(() -> passwordHasher.hash(account.getPassword()));
+        Account newAccount;
+        try{
+            newAccount = accountRepository.saveAndFlush(new Account(account.getUsername(), passwordHash));
+        }
+        catch(DataIntegrityViolationException e){
+            if (isUniqueViolation(e)){
+                throw new DuplicateUsernameException("Username already exists.");
+            }
+            throw new RegistrationException("Account could not be registered.");
+        }
+        accountIdIndex.add(newAccount.getAccountId());
+        usernameFilter.add(newAccount.getUsername());
+        return new Account(newAccount.getAccountId(), newAccount.getUsername(), account.getPassword());
     }
 
     /**
      * Verify the existance of an account using both username and password.
+     * Usernames the username filter has never seen are rejected without a query. The password is checked on the
+     * hashing pool; a legacy plaintext password or a hash made with a lower cost than configured is replaced by a
+     * fresh hash once it has been verified.
      * 
      * @param account being verified
-     * @return verified account
+     * @return verified account, carrying the submitted password rather than its hash
      * @throws AccountDoesNotExistException
+     * @throws HashingUnavailableException if the hashing pool is saturated
      */
-    public Account verifyLogin(Account account) throws AccountDoesNotExistException{
-        Optional<Account> optionalAccount = accountRepository.findAccountByUsernameAndPassword(account.getUsername(), account.getPassword());
-        if (optionalAccount.isPresent()){
-            return optionalAccount.get();
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Account verifyLogin(Account account) throws AccountDoesNotExistException, HashingUnavailableException{
+        if (account.getUsername() == null || account.getPassword() == null || !usernameFilter.mightExist(account.getUsername())){
+            throw new AccountDoesNotExistException("An account matching these login details does not exist");
+        }
+        Optional<Account> optionalAccount = accountRepository.findAccountByUsername(account.getUsername());
+        if (!optionalAccount.isPresent()){
+            usernameFilter.recordFalsePositive();
+            throw new AccountDoesNotExistException("An account matching these login details does not exist");
+        }
+        Account storedAccount = optionalAccount.get();
+        String stored = storedAccount.getPassword();
+        Optional<String> rehash = hashingExecutor.run(() -> {
+            if (!passwordHasher.matches(account.getPassword(), stored)){
+                return null;
+            }
+            return Optional.ofNullable(passwordHasher.needsRehash(stored) ? passwordHasher.hash(account.getPassword()) : null);
+        });
+        if (rehash == null){
+            throw new AccountDoesNotExistException("An account matching these login details does not exist");
         }
-        throw new AccountDoesNotExistException("An account matching these login details does not exist");
+        rehash.ifPresent(passwordHash -> accountRepository.updatePassword(storedAccount.getAccountId(), passwordHash));
+        return new Account(storedAccount.getAccountId(), storedAccount.getUsername(), account.getPassword());
+    }
+
+    private static boolean isUniqueViolation(DataIntegrityViolationException e){
+        Throwable cause = e.getMostSpecificCause();
+        return cause instanceof SQLException && UNIQUE_VIOLATION.equals(((SQLException) cause).getSQLState());
     }
 }
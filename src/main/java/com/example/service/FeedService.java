@@ -0,0 +1,285 @@
+package com.example.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.example.cache.AccountIdIndex;
+import com.example.cache.HomeTimeline;
+import com.example.cache.HomeTimelineCache;
+import com.example.dto.MessageCursor;
+import com.example.dto.MessagePage;
+import com.example.entity.*;
+import com.example.repository.*;
+import com.example.exception.FollowException;
+import com.example.exception.InvalidCursorException;
+
+/**
+ * This class is responsible for the follow graph and for serving home feeds, the messages of every account an
+ * account follows, newest first.
+ *
+ * Feeds are served from precomputed home timelines. New messages are pushed into the cached timelines of the
+ * author's followers on a background pool after the post commits (fan-out on write). Authors with at least
+ * app.feed.celebrity-follower-threshold followers are not pushed; their newest messages are read and merged in
+ * when a feed page is requested (fan-out on read), so a page costs one lookup by id for the timeline plus one
+ * seek query per celebrity followed.
+ *
+ * The split is fixed when a timeline is built. The first time fan-out finds an author above the threshold, the
+ * cached timelines of its followers are dropped, so that none keeps waiting for pushes that no longer come.
+ */
+@Service
+@Transactional
+public class FeedService {
+    private final FollowRepository followRepository;
+    private final MessageRepository messageRepository;
+    private final HomeTimelineCache homeTimelines;
+    private final AccountIdIndex accountIdIndex;
+    private final ThreadPoolExecutor fanOutExecutor;
+    private final int timelineCapacity;
+    private final long celebrityThreshold;
+    private final LongAdder droppedFanOuts = new LongAdder();
+    private final Set<Long> knownCelebrities = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public FeedService(FollowRepository followRepository, MessageRepository messageRepository,
+                       HomeTimelineCache homeTimelines, AccountIdIndex accountIdIndex,
+                       @Value("${app.feed.timelines.capacity}") int timelineCapacity,
+                       @Value("${app.feed.celebrity-follower-threshold}") long celebrityThreshold,
+                       @Value("${app.feed.fan-out.threads}") int fanOutThreads,
+                       @Value("${app.feed.fan-out.queue-capacity}") int fanOutQueueCapacity){
+        this.followRepository = followRepository;
+        this.messageRepository = messageRepository;
+        this.homeTimelines = homeTimelines;
+        this.accountIdIndex = accountIdIndex;
+        this.timelineCapacity = timelineCapacity;
+        this.celebrityThreshold = celebrityThreshold;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fanOutExecutor = new ThreadPoolExecutor(fanOutThreads, fanOutThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fanOutQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "feed-fan-out-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    //Service methods
+
+    /**
+     * Make one account follow another. Following an account that is already followed has no effect. Runs outside
+     * the class transaction so that a concurrent duplicate insert rolls back on its own.
+     * 
+     * @param followerId
+     * @param followeeId
+     * @throws FollowException if either account does not exist or the accounts are the same
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void follow(Long followerId, Long followeeId) throws FollowException{
+        if (followerId.equals(followeeId)){
+            throw new FollowException("Accounts cannot follow themselves.");
+        }
+        if (!accountIdIndex.exists(followerId) || !accountIdIndex.exists(followeeId)){
+            throw new FollowException("Both accounts must exist.");
+        }
+        try{
+            followRepository.saveAndFlush(new Follow(followerId, followeeId));
+        }
+        catch(DataIntegrityViolationException e){
+            //Followed concurrently by another request
+        }
+        homeTimelines.invalidate(followerId);
+    }
+
+    /**
+     * Make one account stop following another.
+     * 
+     * @param followerId
+     * @param followeeId
+     * @return number of rows updated as a result of this call
+     */
+    public int unfollow(Long followerId, Long followeeId){
+        int rowsUpdated = followRepository.deleteFollow(followerId, followeeId);
+        if (rowsUpdated > 0){
+            MessageService.afterCommit(() -> homeTimelines.invalidate(followerId));
+        }
+        return rowsUpdated;
+    }
+
+    /**
+     * This method handles the retrieval of one page of an account's home feed, newest first.
+     * 
+     * @param accountId
+     * @param limit requested page size, or null for the default
+     * @param after cursor returned with the previous page, or null for the first page
+     * @return page of messages and the cursor of the following page
+     * @throws InvalidCursorException
+     */
+    @Transactional(readOnly = true)
+    public MessagePage getFeed(Long accountId, Integer limit, String after) throws InvalidCursorException{
+        int pageSize = MessageService.pageSize(limit);
+        MessageCursor cursor = after == null ? MessageCursor.START : MessageCursor.decode(after);
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        HomeTimeline timeline = homeTimelines.get(accountId, this::buildTimeline);
+
+        List<List<Message>> sources = new ArrayList<>();
+        List<Message> pushed = readTimeline(timeline, cursor, pageSize + 1);
+        if (pushed != null){
+            sources.add(pushed);
+        }
+        else if (!timeline.getFollowees().isEmpty()){
+            //The page reaches past what the timeline kept, read the rest from the table
+            List<Message> dated = messageRepository.findMessagesByPostedByInBefore(timeline.getFollowees(),
+                    cursor.getTimePostedEpoch(), cursor.getMessageId(), page);
+            sources.add(MessageService.withUndated(dated, pageSize + 1, cursor, (messageId, undatedPage) ->
+                    messageRepository.findUndatedMessagesByPostedByInBefore(timeline.getFollowees(), messageId, undatedPage)));
+        }
+        for (Long celebrityId : timeline.getCelebrities()){
+            List<Message> dated = messageRepository.findMessagesByPostedByBefore(celebrityId, Long.MIN_VALUE,
+                    cursor.getTimePostedEpoch(), cursor.getMessageId(), page);
+            sources.add(MessageService.withUndated(dated, pageSize + 1, cursor, (messageId, undatedPage) ->
+                    messageRepository.findUndatedMessagesByPostedByBefore(celebrityId, messageId, undatedPage)));
+        }
+        return MessageService.toPage(mergeNewestFirst(sources, pageSize + 1), pageSize);
+    }
+
+    /**
+     * Queue newly committed messages to be pushed into their authors' followers' timelines. If the fan-out queue
+     * is full every timeline is dropped instead, so that none of them misses the messages.
+     * 
+     * @param messages
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void messagesPosted(List<Message> messages){
+        try{
+            fanOutExecutor.execute(() -> fanOut(messages));
+        }
+        catch(RejectedExecutionException e){
+            droppedFanOuts.increment();
+            homeTimelines.invalidateAll();
+        }
+    }
+
+    /**
+     * @return number of fan-outs dropped because the queue was full
+     */
+    public long getDroppedFanOutCount(){
+        return droppedFanOuts.sum();
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        fanOutExecutor.shutdownNow();
+    }
+
+    private HomeTimeline buildTimeline(Long accountId){
+        Set<Long> followees = new HashSet<>();
+        Set<Long> celebrities = new HashSet<>();
+        for (Object[] row : followRepository.findFolloweesWithFollowerCounts(accountId)){
+            Long followeeId = (Long) row[0];
+            long followerCount = ((Number) row[1]).longValue();
+            (followerCount >= celebrityThreshold ? celebrities : followees).add(followeeId);
+        }
+        List<Message> recent = List.of();
+        if (!followees.isEmpty()){
+            recent = MessageService.withUndated(messageRepository.findMessagesByPostedByInBefore(followees,
+                            Long.MAX_VALUE, Long.MAX_VALUE, PageRequest.of(0, timelineCapacity)),
+                    timelineCapacity, MessageCursor.START, (messageId, page) ->
+                            messageRepository.findUndatedMessagesByPostedByInBefore(followees, messageId, page));
+        }
+        return new HomeTimeline(timelineCapacity, followees, celebrities, recent);
+    }
+
+    /**
+     * Load the next entries of a timeline. Entries of messages deleted since they were pushed are removed from
+     * the timeline as they are found.
+     * @return messages newest first, or null if the timeline cannot fill the page
+     */
+    private List<Message> readTimeline(HomeTimeline timeline, MessageCursor cursor, int count){
+        while (true){
+            List<Long> ids = timeline.idsAfter(cursor, count);
+            if (ids.size() < count && timeline.isTruncated()){
+                return null;
+            }
+            List<Message> messages = MessageService.inIdOrder(ids, messageRepository.findAllById(ids));
+            if (messages.size() == ids.size()){
+                return messages;
+            }
+            Set<Long> deleted = new HashSet<>(ids);
+            for (Message message : messages){
+                deleted.remove(message.getMessageId());
+            }
+            timeline.removeAll(deleted);
+        }
+    }
+
+    private void fanOut(List<Message> messages){
+        Map<Long, List<Message>> messagesByAuthor = new LinkedHashMap<>();
+        for (Message message : messages){
+            messagesByAuthor.computeIfAbsent(message.getPostedBy(), authorId -> new ArrayList<>()).add(message);
+        }
+        for (Map.Entry<Long, List<Message>> entry : messagesByAuthor.entrySet()){
+            Long authorId = entry.getKey();
+            //Celebrities are counted, not loaded, so their follower lists are only read once, when first seen
+            if (followRepository.countFollowers(authorId) >= celebrityThreshold){
+                if (knownCelebrities.add(authorId)){
+                    homeTimelines.invalidateAll(followRepository.findFollowerIds(authorId));
+                }
+                continue;
+            }
+            knownCelebrities.remove(authorId);
+            List<Long> followerIds = followRepository.findFollowerIds(authorId);
+            for (Message message : entry.getValue()){
+                homeTimelines.messagePosted(message, followerIds);
+            }
+        }
+    }
+
+    /**
+     * k-way merge of lists that are each sorted newest first, dropping messages present in more than one list.
+     */
+    private static List<Message> mergeNewestFirst(List<List<Message>> sources, int count){
+        if (sources.size() == 1){
+            List<Message> only = sources.get(0);
+            return only.size() <= count ? only : only.subList(0, count);
+        }
+        PriorityQueue<int[]> heads = new PriorityQueue<>((a, b) ->
+                MessageService.NEWEST_FIRST.compare(sources.get(a[0]).get(a[1]), sources.get(b[0]).get(b[1])));
+        for (int i = 0; i < sources.size(); i++){
+            if (!sources.get(i).isEmpty()){
+                heads.add(new int[] {i, 0});
+            }
+        }
+        List<Message> merged = new ArrayList<>(count);
+        Set<Long> seen = new HashSet<>();
+        while (merged.size() < count && !heads.isEmpty()){
+            int[] head = heads.poll();
+            List<Message> source = sources.get(head[0]);
+            Message message = source.get(head[1]);
+            if (seen.add(message.getMessageId())){
+                merged.add(message);
+            }
+            if (head[1] + 1 < source.size()){
+                heads.add(new int[] {head[0], head[1] + 1});
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.example.cache.AccountIdIndex;
+import com.example.cache.PendingMessageOverlay;
+import com.example.entity.*;
+import com.example.id.EntityIdAllocator;
+import com.example.exception.ForbiddenActionException;
+import com.example.exception.IngestQueueFullException;
+import com.example.exception.MessageCreationException;
+
+/**
+ * Write-behind ingestion of new messages, enabled with app.ingest.async=true.
+ *
+ * A message is validated, given its id straight away and put on a bounded queue; the caller gets the id without
+ * waiting for a commit. A single writer thread drains whatever has accumulated, up to app.ingest.max-batch
+ * messages, and inserts it as one JDBC batch in one transaction, so under load many posts share one commit.
+ * Until its batch commits a message is served from the PendingMessageOverlay, which gives the posting account
+ * read-your-writes. A full queue is reported to the caller rather than blocking it, and the queue is flushed
+ * before the application shuts down.
+ */
+@Service
+public class MessageIngestService {
+    private static final Logger log = LoggerFactory.getLogger(MessageIngestService.class);
+    private static final String INSERT_MESSAGE =
+            "insert into message (messageId, postedBy, messageText, timePostedEpoch) values (?, ?, ?, ?)";
+    private static final long POLL_MILLIS = 100;
+
+    private final MessageService messageService;
+    private final AccountIdIndex accountIdIndex;
+    private final EntityIdAllocator idAllocator;
+    private final PendingMessageOverlay overlay;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final Duration shutdownTimeout;
+    private final BlockingQueue<Message> queue;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+    private Thread writer;
+    private volatile boolean accepting;
+
+    @Autowired
+    public MessageIngestService(MessageService messageService, AccountIdIndex accountIdIndex,
+                                EntityIdAllocator idAllocator, PendingMessageOverlay overlay,
+                                JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                @Value("${app.ingest.async}") boolean enabled,
+                                @Value("${app.ingest.queue-capacity}") int queueCapacity,
+                                @Value("${app.ingest.max-batch}") int maxBatch,
+                                @Value("${app.ingest.shutdown-timeout}") Duration shutdownTimeout){
+        this.messageService = messageService;
+        this.accountIdIndex = accountIdIndex;
+        this.idAllocator = idAllocator;
+        this.overlay = overlay;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.shutdownTimeout = shutdownTimeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start(){
+        if (!enabled){
+            return;
+        }
+        accepting = true;
+        writer = new Thread(this::drain, "message-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * @return true if new messages are ingested asynchronously
+     */
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    /**
+     * Validate a new message and queue it to be written. The same rules as MessageService.postMessage and
+     * postMessageAs apply.
+     * 
+     * @param message not containing an ID
+     * @param sessionAccountId account resolved from the session token, or null
+     * @return the accepted message carrying its id, not yet committed
+     * @throws MessageCreationException
+     * @throws ForbiddenActionException if postedBy names an account other than the session's
+     * @throws IngestQueueFullException if the queue is full or the application is shutting down
+     */
+    public Message submit(Message message, Long sessionAccountId)
+            throws MessageCreationException, ForbiddenActionException, IngestQueueFullException{
+        Long postedBy = message.getPostedBy();
+        if (sessionAccountId != null){
+            if (postedBy != null && !postedBy.equals(sessionAccountId)){
+                throw new ForbiddenActionException("Messages can only be posted by the account that is logged in.");
+            }
+            postedBy = sessionAccountId;
+        }
+        MessageService.validateMessageText(message.getMessageText());
+        if (sessionAccountId == null && !accountIdIndex.exists(postedBy)){
+            throw new MessageCreationException("Messages must be posted by verified users. The user posting the message does not exist.");
+        }
+
+        //Held shared while queueing, so shutdown cannot stop the writer between the check and the offer
+        acceptLock.readLock().lock();
+        try{
+            if (!accepting || queue.remainingCapacity() == 0){
+                rejected.increment();
+                throw new IngestQueueFullException("Too many messages waiting to be written, try again shortly.");
+            }
+
+            Message accepted = new Message(idAllocator.nextId(Message.class), postedBy, message.getMessageText(), message.getTimePostedEpoch());
+            overlay.add(accepted);
+            if (!queue.offer(accepted)){
+                overlay.removeAll(List.of(accepted));
+                rejected.increment();
+                throw new IngestQueueFullException("Too many messages waiting to be written, try again shortly.");
+            }
+            return accepted;
+        }
+        finally{
+            acceptLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stop accepting messages and wait for the writer to commit what is queued. Submissions already past the
+     * accepting check finish queueing first, so the writer sees them before it stops.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException{
+        if (writer == null){
+            return;
+        }
+        acceptLock.writeLock().lock();
+        try{
+            accepting = false;
+        }
+        finally{
+            acceptLock.writeLock().unlock();
+        }
+        writer.join(shutdownTimeout.toMillis());
+        if (!queue.isEmpty()){
+            log.warn("{} queued messages were not written before shutdown", queue.size());
+        }
+    }
+
+    /**
+     * @return number of messages committed
+     */
+    public long getWrittenCount(){
+        return written.sum();
+    }
+
+    /**
+     * @return number of committed batches
+     */
+    public long getBatchCount(){
+        return batches.sum();
+    }
+
+    /**
+     * @return number of accepted messages that could not be written
+     */
+    public long getFailedCount(){
+        return failed.sum();
+    }
+
+    /**
+     * @return number of messages refused because the queue was full
+     */
+    public long getRejectedCount(){
+        return rejected.sum();
+    }
+
+    /**
+     * @return number of messages waiting to be written
+     */
+    public int getQueueSize(){
+        return queue.size();
+    }
+
+    private void drain(){
+        List<Message> batch = new ArrayList<>(maxBatch);
+        while (accepting || !queue.isEmpty()){
+            try{
+                Message first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null){
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                write(batch);
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch(RuntimeException e){
+                log.error("Message ingestion failed", e);
+            }
+            finally{
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Insert a batch in one transaction. If the batch is refused, each message is retried on its own so that one
+     * bad row does not lose the others.
+     */
+    private void write(List<Message> batch){
+        List<Message> committed;
+        try{
+            transactionTemplate.executeWithoutResult(status -> insert(batch));
+            committed = batch;
+        }
+        catch(DataAccessException e){
+            committed = new ArrayList<>(batch.size());
+            for (Message message : batch){
+                try{
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(message)));
+                    committed.add(message);
+                }
+                catch(DataAccessException rowFailure){
+                    failed.increment();
+                    log.warn("Dropped message {} that could not be written: {}", message.getMessageId(), rowFailure.getMessage());
+                }
+            }
+        }
+        batches.increment();
+        written.add(committed.size());
+        messageService.messagesPosted(committed);
+        overlay.removeAll(batch);
+    }
+
+    private void insert(List<Message> messages){
+        jdbcTemplate.batchUpdate(INSERT_MESSAGE, messages, messages.size(), (statement, message) -> {
+            statement.setLong(1, message.getMessageId());
+            statement.setLong(2, message.getPostedBy());
+            statement.setString(3, message.getMessageText());
+            if (message.getTimePostedEpoch() == null){
+                statement.setNull(4, Types.BIGINT);
+            }
+            else{
+                statement.setLong(4, message.getTimePostedEpoch());
+            }
+        });
+    }
+}
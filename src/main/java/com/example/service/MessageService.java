@@ -1,14 +1,56 @@
 package com.example.service;
 
-import javax.transaction.Transactional;
+import javax.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import com.example.cache.AccountIdIndex;
+import com.example.cache.AccountTimelineCache;
+import com.example.cache.MessageCache;
+import com.example.cache.MessageVersions;
+import com.example.cache.PendingMessageOverlay;
+import com.example.dto.BatchItemResult;
+import com.example.dto.MessageCursor;
+import com.example.dto.MessagePage;
 import com.example.entity.*;
 import com.example.repository.*;
+import com.example.search.MessageSearchIndex;
+import com.example.exception.ForbiddenActionException;
+import com.example.exception.InvalidCursorException;
+import com.example.exception.InvalidSearchException;
 import com.example.exception.MessageCreationException;
+import com.example.exception.MessagePendingException;
 
 /**
  * This class is responsible for message related services and calls to both accountRepository and messageRepository.
@@ -16,13 +58,51 @@ import com.example.exception.MessageCreationException;
 @Service
 @Transactional
 public class MessageService {
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+    static final int MAX_BATCH_SIZE = 1000;
+    static final String INVALID_LIMIT_MESSAGE = "limit must be at least 1.";
+    private static final String PENDING_WRITE_MESSAGE = "The message is still being written, try again shortly.";
+    static final Comparator<Message> NEWEST_FIRST = Comparator
+            .comparingLong(MessageCursor::timeOf)
+            .thenComparingLong(Message::getMessageId)
+            .reversed();
+
     private final AccountRepository accountRepository;
     private final MessageRepository messageRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final AccountTimelineCache timelineCache;
+    private final MessageCache messageCache;
+    private final AccountIdIndex accountIdIndex;
+    private final MessageSearchIndex searchIndex;
+    private final FeedService feedService;
+    private final PendingMessageOverlay pendingMessages;
+    private final MessageVersions versions;
+    private final TransactionTemplate transactionTemplate;
+    private final int deleteChunkSize;
 
     @Autowired
-    public MessageService(AccountRepository accountRepository, MessageRepository messageRepository){
+    public MessageService(AccountRepository accountRepository, MessageRepository messageRepository,
+                          EntityManager entityManager, ObjectMapper objectMapper,
+                          AccountTimelineCache timelineCache, MessageCache messageCache,
+                          AccountIdIndex accountIdIndex, MessageSearchIndex searchIndex, FeedService feedService,
+                          PendingMessageOverlay pendingMessages, MessageVersions versions,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.delete.chunk-size}") int deleteChunkSize){
         this.accountRepository = accountRepository;
         this.messageRepository = messageRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.timelineCache = timelineCache;
+        this.messageCache = messageCache;
+        this.accountIdIndex = accountIdIndex;
+        this.searchIndex = searchIndex;
+        this.feedService = feedService;
+        this.pendingMessages = pendingMessages;
+        this.versions = versions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.deleteChunkSize = deleteChunkSize;
     }
 
     //Service Methods
@@ -36,35 +116,166 @@ public class MessageService {
      */
     public Message postMessage(Message message) throws MessageCreationException{
         //Input validation
-        if (message.getMessageText().length() > 255){
-            throw new MessageCreationException("Message cannot be longer than 255 characters.");
-        }
-        if (message.getMessageText().isBlank()){
-            throw new MessageCreationException("Message cannot be blank.");
-        }
-        if (!accountRepository.getAccountByAccountId(message.getPostedBy()).isPresent()){
+        validateMessageText(message.getMessageText());
+        if (!accountIdIndex.exists(message.getPostedBy())){
             throw new MessageCreationException("Messages must be posted by verified users. The user posting the message does not exist.");
         }
 
         //Input is valid
-        return messageRepository.save(new Message(message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch()));
+        return savePostedMessage(message.getPostedBy(), message);
+    }
+
+    /**
+     * This method handles the persistence of a new message for an account already authenticated by its
+     * session token, so the poster is not checked against the account table.
+     * 
+     * @param accountId authenticated poster
+     * @param message not containing an ID, postedBy may be omitted
+     * @return message that was persisted
+     * @throws MessageCreationException if the message text is invalid
+     * @throws ForbiddenActionException if postedBy names a different account
+     */
+    public Message postMessageAs(long accountId, Message message) throws MessageCreationException, ForbiddenActionException{
+        if (message.getPostedBy() != null && message.getPostedBy() != accountId){
+            throw new ForbiddenActionException("Messages can only be posted by the account that is logged in.");
+        }
+        validateMessageText(message.getMessageText());
+        return savePostedMessage(accountId, message);
+    }
+
+    /**
+     * This method handles the validation and persistence of a batch of new messages. Each message is checked with
+     * the same rules as postMessage, the existence of every distinct poster is checked with a single query and
+     * the valid messages are inserted together using JDBC batching. Invalid messages do not prevent the valid
+     * ones from being persisted.
+     * 
+     * @param messages not containing IDs
+     * @return one result per submitted message, in submission order
+     * @throws MessageCreationException if the batch itself is too large
+     */
+    public List<BatchItemResult> postMessages(List<Message> messages) throws MessageCreationException{
+        if (messages.size() > MAX_BATCH_SIZE){
+            throw new MessageCreationException("A batch cannot contain more than " + MAX_BATCH_SIZE + " messages.");
+        }
+        //Posters missing from the account id index are checked together in one query
+        Set<Long> existingPosters = new HashSet<>();
+        Set<Long> unknownPosters = new HashSet<>();
+        for (Message message : messages){
+            Long postedBy = message.getPostedBy();
+            if (postedBy == null){
+                continue;
+            }
+            if (accountIdIndex.contains(postedBy)){
+                existingPosters.add(postedBy);
+            }
+            else {
+                unknownPosters.add(postedBy);
+            }
+        }
+        if (!unknownPosters.isEmpty()){
+            for (Long accountId : accountRepository.findExistingAccountIds(unknownPosters)){
+                accountIdIndex.add(accountId);
+                existingPosters.add(accountId);
+            }
+        }
+
+        //Input validation, per message
+        BatchItemResult[] results = new BatchItemResult[messages.size()];
+        List<Message> toSave = new ArrayList<>();
+        List<Integer> toSaveIndexes = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++){
+            Message message = messages.get(i);
+            try{
+                validateMessageText(message.getMessageText());
+                if (!existingPosters.contains(message.getPostedBy())){
+                    throw new MessageCreationException("Messages must be posted by verified users. The user posting the message does not exist.");
+                }
+                toSave.add(new Message(message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch()));
+                toSaveIndexes.add(i);
+            }
+            catch(MessageCreationException e){
+                results[i] = BatchItemResult.failed(i, e.getMessage());
+            }
+        }
+
+        //Valid messages are flushed as JDBC batches at commit
+        List<Message> postedMessages = messageRepository.saveAll(toSave);
+        for (int i = 0; i < postedMessages.size(); i++){
+            int index = toSaveIndexes.get(i);
+            results[index] = BatchItemResult.created(index, postedMessages.get(i));
+        }
+        afterCommit(() -> messagesPosted(postedMessages));
+        return Arrays.asList(results);
     }
 
     /**
      * This method handles the retrieval of all existing messages.
      * @return List of all messages within the database.
      */
+    @Transactional(readOnly = true)
     public List<Message> getAllMessages(){
-        return messageRepository.findAll();  
+        return withPending(messageRepository.findAll(), pendingMessages.all());
+    }
+
+    /**
+     * This method handles the export of every message as newline delimited JSON. Each row is written to the
+     * output stream as soon as it is read and then detached, so memory use does not grow with the table.
+     * @param out stream the messages are written to, left open
+     * @throws IOException
+     */
+    @Transactional(readOnly = true)
+    public void exportMessages(OutputStream out) throws IOException{
+        ObjectWriter writer = objectMapper.writerFor(Message.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        try (Stream<Message> messages = messageRepository.streamAllMessages()){
+            Iterator<Message> iterator = messages.iterator();
+            while (iterator.hasNext()){
+                Message message = iterator.next();
+                writer.writeValue(generator, message);
+                generator.writeRaw('\n');
+                entityManager.detach(message);
+            }
+        }
+        generator.flush();
+    }
+
+    /**
+     * This method handles the retrieval of one page of messages, newest first, optionally restricted to a
+     * range of timePostedEpoch.
+     * @param limit requested page size, or null for the default
+     * @param after cursor returned with the previous page, or null for the first page
+     * @param since inclusive lower bound on timePostedEpoch, or null for none
+     * @param until exclusive upper bound on timePostedEpoch, or null for none
+     * @return page of messages and the cursor of the following page
+     * @throws InvalidCursorException
+     */
+    @Transactional(readOnly = true)
+    public MessagePage getMessagesPage(Integer limit, String after, Long since, Long until) throws InvalidCursorException{
+        int pageSize = pageSize(limit);
+        MessageCursor cursor = startCursor(after, until);
+        List<Message> messages = messageRepository.findMessagesBefore(since == null ? Long.MIN_VALUE : since,
+                cursor.getTimePostedEpoch(), cursor.getMessageId(), PageRequest.of(0, pageSize + 1));
+        if (since == null){
+            messages = withUndated(messages, pageSize + 1, cursor, messageRepository::findUndatedMessagesBefore);
+        }
+        return toPage(messages, pageSize);
     }
 
     /**
      * This method handles the retreival of a message given its id.
+     * Messages, and ids known not to exist, are served from the message cache.
      * @param messageId
      * @return message matching the provided id
      */
-    public Message getMessageById(Integer messageId){
-        Optional<Message> optionalMessage = messageRepository.findMessageByMessageId(messageId);
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Message getMessageById(Long messageId){
+        Message pending = pendingMessages.get(messageId);
+        if (pending != null){
+            return pending;
+        }
+        Optional<Message> optionalMessage = messageCache.get(messageId, messageRepository::findMessageByMessageId);
         if (optionalMessage.isPresent()){
             return optionalMessage.get();
         }
@@ -75,48 +286,403 @@ public class MessageService {
      * This method handles the deletion of a message given its id.
      * @param messageId
      * @return number of rows updated as a result of this call
+     * @throws MessagePendingException if the message is accepted but not yet written
      */
-    public int deleteMessageById(Integer messageId){
+    public int deleteMessageById(Long messageId) throws MessagePendingException{
+        rejectPending(List.of(messageId));
+        Long postedBy = findPoster(messageId);
+        if (postedBy == null){
+            return 0;
+        }
         int rowsUpdated = messageRepository.deleteMessageByMessageId(messageId);
+        if (rowsUpdated > 0){
+            afterCommit(() -> messagesDeleted(Map.of(messageId, postedBy)));
+        }
+        return rowsUpdated;
+    }
+
+    /**
+     * This method handles the deletion of many messages given their ids. The ids are deleted in chunks, each in its
+     * own short transaction, so a large request never holds its locks for long.
+     * @param messageIds
+     * @return number of rows updated as a result of this call
+     * @throws MessagePendingException if any of the messages is accepted but not yet written, nothing is deleted
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int deleteMessagesByIds(Collection<Long> messageIds) throws MessagePendingException{
+        rejectPending(messageIds);
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(messageIds));
+        int rowsUpdated = 0;
+        for (int from = 0; from < distinctIds.size(); from += deleteChunkSize){
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + deleteChunkSize, distinctIds.size()));
+            rowsUpdated += deleteChunk(chunk, null);
+        }
         return rowsUpdated;
     }
 
+    /**
+     * This method handles the deletion of every message posted by an account. Ids are selected and deleted one
+     * chunk at a time, each chunk in its own short transaction.
+     * @param accountId
+     * @return number of rows updated as a result of this call
+     * @throws MessagePendingException if the account has messages accepted but not yet written, nothing is deleted
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int deleteMessagesByAccount(Long accountId) throws MessagePendingException{
+        if (!pendingMessages.byAccount(accountId).isEmpty()){
+            throw new MessagePendingException(PENDING_WRITE_MESSAGE);
+        }
+        int rowsUpdated = 0;
+        while (true){
+            List<Long> chunk = messageRepository.findMessageIdsByPostedBy(accountId, PageRequest.of(0, deleteChunkSize));
+            if (chunk.isEmpty()){
+                return rowsUpdated;
+            }
+            rowsUpdated += deleteChunk(chunk, accountId);
+        }
+    }
+
+    /**
+     * @param postedBy poster of every message of the chunk, or null to read the posters before deleting
+     */
+    private int deleteChunk(List<Long> messageIds, Long postedBy){
+        Integer rowsUpdated = transactionTemplate.execute(status -> {
+            Map<Long, Long> postersById = postedBy == null
+                    ? postersById(messageRepository.findPostersByMessageIdIn(messageIds))
+                    : messageIds.stream().collect(Collectors.toMap(messageId -> messageId, messageId -> postedBy));
+            if (postersById.isEmpty()){
+                return 0;
+            }
+            int deleted = messageRepository.deleteMessagesByMessageIdIn(postersById.keySet());
+            if (deleted > 0){
+                afterCommit(() -> messagesDeleted(postersById));
+            }
+            return deleted;
+        });
+        return rowsUpdated == null ? 0 : rowsUpdated;
+    }
+
+    /**
+     * @param rows pairs of messageId and poster
+     * @return poster of each message, keyed by messageId
+     */
+    static Map<Long, Long> postersById(List<Object[]> rows){
+        Map<Long, Long> postersById = new HashMap<>();
+        for (Object[] row : rows){
+            postersById.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        return postersById;
+    }
+
     /**
      * This method handles the updating of a message given its id and new message text.
      * @param messageId
      * @param message
      * @throws MessageCreationException
+     * @throws MessagePendingException if the message is accepted but not yet written
      * @return number of rows updated
      */
-    public int updateMessageById(Integer messageId, Message message) throws MessageCreationException{
+    public int updateMessageById(Long messageId, Message message) throws MessageCreationException, MessagePendingException{
         //Input text validation
-        if (message.getMessageText().length() > 255){
-            throw new MessageCreationException("Message cannot be longer than 255 characters.");
+        validateMessageText(message.getMessageText());
+        rejectPending(List.of(messageId));
+        
+        //The poster is read first, the text then written by a single UPDATE without loading the message
+        Long postedBy = findPoster(messageId);
+        if (postedBy == null){
+            return 0;
         }
-        if (message.getMessageText().isBlank()){
-            throw new MessageCreationException("Message cannot be blank.");
+        int rowsUpdated = messageRepository.updateMessageText(messageId, message.getMessageText());
+        if (rowsUpdated > 0){
+            afterCommit(() -> messageUpdated(messageId, postedBy, message.getMessageText()));
         }
-        
-        //Updated message
-        Optional<Message> optionalMessage = messageRepository.findMessageByMessageId(messageId);
-        if (optionalMessage.isPresent()){
-            Message messageToUpdate = optionalMessage.get();
-            messageToUpdate.setMessageText(message.getMessageText());
-            messageRepository.save(messageToUpdate);
-            return 1;
+        return rowsUpdated;
+    }
+
+    /**
+     * A message accepted by write-behind ingestion has no row to write to until its batch commits, and the queued
+     * insert would land after the write anyway, so writes to it are refused until then rather than lost.
+     */
+    private void rejectPending(Collection<Long> messageIds) throws MessagePendingException{
+        if (pendingMessages.isEmpty()){
+            return;
+        }
+        for (Long messageId : messageIds){
+            if (pendingMessages.get(messageId) != null){
+                throw new MessagePendingException(PENDING_WRITE_MESSAGE);
+            }
         }
+    }
 
-        //Nothing to update
-        return 0;
+    /**
+     * The poster of a message never changes, so a cached copy is trusted and only a miss reads it from the table.
+     * An id cached as not existing is read again, it may have been posted since.
+     * @return account that posted the message, or null if there is no such message
+     */
+    private Long findPoster(Long messageId){
+        Optional<Message> cached = messageCache.getIfPresent(messageId);
+        if (cached != null && cached.isPresent()){
+            return cached.get().getPostedBy();
+        }
+        return messageRepository.findPostedByByMessageId(messageId).orElse(null);
+    }
+
+    /**
+     * This method handles the updating of a message on behalf of an authenticated account. Only a message
+     * posted by that account is updated.
+     * 
+     * @param accountId authenticated poster
+     * @param messageId
+     * @param message
+     * @return number of rows updated, zero if the message does not exist or was posted by another account
+     * @throws MessageCreationException
+     * @throws MessagePendingException if the message is accepted but not yet written
+     */
+    public int updateMessageByIdAs(long accountId, Long messageId, Message message) throws MessageCreationException, MessagePendingException{
+        validateMessageText(message.getMessageText());
+        rejectPending(List.of(messageId));
+        int rowsUpdated = messageRepository.updateMessageTextByPoster(messageId, accountId, message.getMessageText());
+        if (rowsUpdated > 0){
+            afterCommit(() -> messageUpdated(messageId, accountId, message.getMessageText()));
+        }
+        return rowsUpdated;
     }
 
     /**
      * This method handles the retrival of messages written by a particular user denoted by postedBy.
+     * Lists are served from the timeline cache, a transaction is only opened by the repository on a miss.
      * @param accountId
      * @return list of messages written by specified account
      */
-    public List<Message> getAllMessagesByAccount(Integer accountId){
-        List<Message> messages = messageRepository.findMessagesByPostedBy(accountId);
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Message> getAllMessagesByAccount(Long accountId){
+        List<Message> messages = timelineCache.get(accountId, messageRepository::findMessagesByPostedBy);
+        return withPending(messages, pendingMessages.byAccount(accountId));
+    }
+
+    /**
+     * This method handles the retrieval of one page of messages written by a particular user, newest first,
+     * optionally restricted to a range of timePostedEpoch.
+     * @param accountId
+     * @param limit requested page size, or null for the default
+     * @param after cursor returned with the previous page, or null for the first page
+     * @param since inclusive lower bound on timePostedEpoch, or null for none
+     * @param until exclusive upper bound on timePostedEpoch, or null for none
+     * @return page of messages and the cursor of the following page
+     * @throws InvalidCursorException
+     */
+    @Transactional(readOnly = true)
+    public MessagePage getMessagesPageByAccount(Long accountId, Integer limit, String after, Long since, Long until) throws InvalidCursorException{
+        int pageSize = pageSize(limit);
+        MessageCursor cursor = startCursor(after, until);
+        long lowerBound = since == null ? Long.MIN_VALUE : since;
+        List<Message> messages = messageRepository.findMessagesByPostedByBefore(accountId, lowerBound,
+                cursor.getTimePostedEpoch(), cursor.getMessageId(), PageRequest.of(0, pageSize + 1));
+        if (since == null){
+            messages = withUndated(messages, pageSize + 1, cursor, (messageId, page) ->
+                    messageRepository.findUndatedMessagesByPostedByBefore(accountId, messageId, page));
+        }
+        List<Message> pending = pendingMessages.byAccount(accountId);
+        if (!pending.isEmpty()){
+            pending.removeIf(message -> MessageCursor.timeOf(message) < lowerBound || !cursor.precedes(message));
+            messages = withPending(messages, pending);
+            messages.sort(NEWEST_FIRST);
+        }
+        return toPage(messages, pageSize);
+    }
+
+    /**
+     * This method handles the search of messages by the words of their text using the in-memory search index.
+     * Every word of the query must appear in a message, and a word ending in * matches any word starting with it.
+     * @param query
+     * @param limit requested number of results, or null for the default
+     * @return matching messages, newest id first
+     * @throws InvalidSearchException if the query contains no words or limit is below 1
+     */
+    @Transactional(readOnly = true)
+    public List<Message> searchMessages(String query, Integer limit) throws InvalidSearchException{
+        if (!MessageSearchIndex.hasTerms(query)){
+            throw new InvalidSearchException("Search query must contain at least one word.");
+        }
+        if (!isValidLimit(limit)){
+            throw new InvalidSearchException(INVALID_LIMIT_MESSAGE);
+        }
+        List<Long> messageIds = searchIndex.search(query, resultLimit(limit));
+        if (messageIds.isEmpty()){
+            return List.of();
+        }
+        return inIdOrder(messageIds, messageRepository.findAllById(messageIds));
+    }
+
+    private static MessageCursor startCursor(String after, Long until) throws InvalidCursorException{
+        MessageCursor cursor = after == null ? MessageCursor.START : MessageCursor.decode(after);
+        return until == null ? cursor : cursor.before(until);
+    }
+
+    /**
+     * @param limit requested page size, or null for the default
+     * @return the page size, capped at MAX_PAGE_SIZE
+     * @throws InvalidCursorException if limit is below 1
+     */
+    static int pageSize(Integer limit) throws InvalidCursorException{
+        if (!isValidLimit(limit)){
+            throw new InvalidCursorException(INVALID_LIMIT_MESSAGE);
+        }
+        return resultLimit(limit);
+    }
+
+    static boolean isValidLimit(Integer limit){
+        return limit == null || limit > 0;
+    }
+
+    /**
+     * @param limit requested number of results, already checked with isValidLimit, or null for the default
+     */
+    static int resultLimit(Integer limit){
+        return limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Messages without a timePostedEpoch come after every dated one, so they are only read, by a second seek query
+     * on messageId, once the dated messages no longer fill the page. Callers skip this when a lower time bound is
+     * given, which no undated message meets.
+     * @param dated page read from the dated seek query
+     * @param count rows wanted, including the extra row of toPage
+     * @param undatedBefore seek query for messages without a timePostedEpoch, by id bound and page size
+     */
+    static List<Message> withUndated(List<Message> dated, int count, MessageCursor cursor,
+                                     BiFunction<Long, Pageable, List<Message>> undatedBefore){
+        if (dated.size() >= count){
+            return dated;
+        }
+        List<Message> undated = undatedBefore.apply(cursor.undatedMessageIdBound(), PageRequest.of(0, count - dated.size()));
+        if (undated.isEmpty()){
+            return dated;
+        }
+        List<Message> messages = new ArrayList<>(dated.size() + undated.size());
+        messages.addAll(dated);
+        messages.addAll(undated);
         return messages;
     }
+
+    /**
+     * One extra row is fetched to find out whether another page exists without a count query.
+     */
+    static MessagePage toPage(List<Message> messages, int pageSize){
+        if (messages.size() <= pageSize){
+            return new MessagePage(messages, null);
+        }
+        List<Message> page = messages.subList(0, pageSize);
+        return new MessagePage(page, MessageCursor.after(page.get(pageSize - 1)).encode());
+    }
+
+    /**
+     * Add the messages accepted for write-behind ingestion that are not committed yet, so that an account reads
+     * its own writes.
+     */
+    private static List<Message> withPending(List<Message> messages, List<Message> pending){
+        if (pending.isEmpty()){
+            return messages;
+        }
+        Set<Long> committedIds = new HashSet<>();
+        for (Message message : messages){
+            committedIds.add(message.getMessageId());
+        }
+        List<Message> merged = new ArrayList<>(messages);
+        pending.sort(Comparator.comparing(Message::getMessageId));
+        for (Message message : pending){
+            if (!committedIds.contains(message.getMessageId())){
+                merged.add(message);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Put messages loaded by id back into the order of the ids, skipping ids that no longer exist.
+     */
+    static List<Message> inIdOrder(List<Long> messageIds, Iterable<Message> loaded){
+        Map<Long, Message> messagesById = new HashMap<>();
+        for (Message message : loaded){
+            messagesById.put(message.getMessageId(), message);
+        }
+        List<Message> messages = new ArrayList<>(messagesById.size());
+        for (Long messageId : messageIds){
+            Message message = messagesById.get(messageId);
+            if (message != null){
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Rules shared by message creation and update.
+     */
+    static void validateMessageText(String messageText) throws MessageCreationException{
+        if (messageText == null){
+            throw new MessageCreationException("Message cannot be blank.");
+        }
+        if (messageText.length() > 255){
+            throw new MessageCreationException("Message cannot be longer than 255 characters.");
+        }
+        if (messageText.isBlank()){
+            throw new MessageCreationException("Message cannot be blank.");
+        }
+    }
+
+    private Message savePostedMessage(Long postedBy, Message message){
+        Message postedMessage = messageRepository.save(new Message(postedBy, message.getMessageText(), message.getTimePostedEpoch()));
+        afterCommit(() -> messagesPosted(List.of(postedMessage)));
+        return postedMessage;
+    }
+
+    /**
+     * Versions are bumped last, once the caches serve the new state.
+     */
+    void messageUpdated(Long messageId, Long postedBy, String messageText){
+        messageCache.messageUpdated(messageId);
+        timelineCache.messageUpdated(postedBy, messageId, messageText);
+        searchIndex.messageUpdated(messageId, messageText);
+        versions.messagesChanged(Set.of(messageId), Set.of(postedBy));
+    }
+
+    void messagesPosted(List<Message> postedMessages){
+        for (Message postedMessage : postedMessages){
+            messageCache.messagePosted(postedMessage);
+            timelineCache.messagePosted(postedMessage);
+            searchIndex.messagePosted(postedMessage);
+        }
+        feedService.messagesPosted(postedMessages);
+        versions.messagesChanged(postedMessages);
+    }
+
+    /**
+     * @param postersById account that posted each deleted message, keyed by messageId
+     */
+    void messagesDeleted(Map<Long, Long> postersById){
+        for (Long messageId : postersById.keySet()){
+            messageCache.messageDeleted(messageId);
+        }
+        timelineCache.messagesDeleted(postersById);
+        searchIndex.messagesDeleted(postersById.keySet());
+        versions.messagesChanged(postersById.keySet(), new HashSet<>(postersById.values()));
+    }
+
+    /**
+     * Caches are only patched once the write is committed, so a concurrent miss can never reload a row that is
+     * later rolled back.
+     */
+    static void afterCommit(Runnable action){
+        if (!TransactionSynchronizationManager.isSynchronizationActive()){
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization(){
+            @Override
+            public void afterCommit(){
+                action.run();
+            }
+        });
+    }
 }
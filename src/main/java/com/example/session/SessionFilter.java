@@ -0,0 +1,52 @@
+package com.example.session;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Resolves the session token sent as "Authorization: Bearer ..." to the caller's account id, which is exposed to
+ * the controller as the ACCOUNT_ID request attribute. Requests without a token pass through unauthenticated;
+ * requests with an unknown or expired token are answered with 401.
+ */
+@Component
+@Profile("!reactive")
+public class SessionFilter extends OncePerRequestFilter {
+    public static final String ACCOUNT_ID = "com.example.session.accountId";
+    public static final String TOKEN = "com.example.session.token";
+    private static final String BEARER = "Bearer ";
+
+    private final SessionStore sessionStore;
+
+    @Autowired
+    public SessionFilter(SessionStore sessionStore){
+        this.sessionStore = sessionStore;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException{
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())){
+            chain.doFilter(request, response);
+            return;
+        }
+        String token = authorization.substring(BEARER.length()).trim();
+        Long accountId = sessionStore.resolve(token);
+        if (accountId == null){
+            response.setStatus(401);
+            response.getWriter().write("Session token is invalid or has expired.");
+            return;
+        }
+        request.setAttribute(ACCOUNT_ID, accountId);
+        request.setAttribute(TOKEN, token);
+        chain.doFilter(request, response);
+    }
+}
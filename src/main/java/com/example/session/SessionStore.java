@@ -0,0 +1,117 @@
+package com.example.session;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory store of session tokens issued at login.
+ *
+ * Tokens are 256 random bits, so they cannot be guessed and need no signature. The store is split into stripes
+ * selected by token hash; each issue also sweeps expired sessions out of one stripe in turn, so expired sessions
+ * are removed without a background thread and without ever walking the whole store at once. Lookups check
+ * expiry themselves, so an expired token is never accepted even before it is swept.
+ */
+@Component
+public class SessionStore {
+    private static final int TOKEN_BYTES = 32;
+
+    private final Map<String, Session>[] stripes;
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicInteger nextSweep = new AtomicInteger();
+
+    @Autowired
+    public SessionStore(@Value("${app.session.time-to-live}") Duration timeToLive,
+                        @Value("${app.session.stripes}") int stripeCount){
+        this(timeToLive, stripeCount, Clock.systemUTC());
+    }
+
+    @SuppressWarnings("unchecked")
+    SessionStore(Duration timeToLive, int stripeCount, Clock clock){
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+        this.stripes = new Map[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++){
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Start a session for an account.
+     * @param accountId
+     * @return token identifying the session
+     */
+    public String issue(long accountId){
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long now = clock.millis();
+        stripeOf(token).put(token, new Session(accountId, now + timeToLive.toMillis()));
+        sweep(stripes[Math.floorMod(nextSweep.getAndIncrement(), stripes.length)], now);
+        return token;
+    }
+
+    /**
+     * @param token
+     * @return account id of the session, or null if the token is unknown or has expired
+     */
+    public Long resolve(String token){
+        Map<String, Session> stripe = stripeOf(token);
+        Session session = stripe.get(token);
+        if (session == null){
+            return null;
+        }
+        if (session.expiresAt <= clock.millis()){
+            stripe.remove(token, session);
+            return null;
+        }
+        return session.accountId;
+    }
+
+    /**
+     * End a session.
+     * @param token
+     * @return true if the session existed
+     */
+    public boolean revoke(String token){
+        return stripeOf(token).remove(token) != null;
+    }
+
+    /**
+     * @return number of sessions held, including expired ones not yet swept
+     */
+    public int size(){
+        int size = 0;
+        for (Map<String, Session> stripe : stripes){
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private Map<String, Session> stripeOf(String token){
+        return stripes[Math.floorMod(token.hashCode(), stripes.length)];
+    }
+
+    private static void sweep(Map<String, Session> stripe, long now){
+        stripe.values().removeIf(session -> session.expiresAt <= now);
+    }
+
+    private static final class Session {
+        private final long accountId;
+        private final long expiresAt;
+
+        private Session(long accountId, long expiresAt){
+            this.accountId = accountId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
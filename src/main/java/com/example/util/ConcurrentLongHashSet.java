@@ -0,0 +1,165 @@
+package com.example.util;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Concurrent set of primitive longs, with no boxing on any path.
+ *
+ * Values are spread over independently locked segments, each an open-addressing table with linear probing.
+ * Lookups use an optimistic read of their segment and only take the read lock if a writer interfered, so
+ * contains() neither blocks nor allocates in the common case. Values can be added but not removed.
+ */
+public class ConcurrentLongHashSet {
+    private static final long EMPTY = 0L;
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private volatile boolean containsEmptyValue;
+
+    /**
+     * @param expectedSize number of values expected, used to size the segments up front
+     * @param concurrencyLevel number of segments, rounded up to a power of two
+     */
+    public ConcurrentLongHashSet(int expectedSize, int concurrencyLevel){
+        int segmentCount = tableSizeFor(concurrencyLevel);
+        this.segments = new Segment[segmentCount];
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+        int perSegment = Math.max(MIN_SEGMENT_CAPACITY, tableSizeFor(expectedSize / segmentCount * 2));
+        for (int i = 0; i < segmentCount; i++){
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * @param value
+     * @return true if the value was not already present
+     */
+    public boolean add(long value){
+        if (value == EMPTY){
+            boolean added = !containsEmptyValue;
+            containsEmptyValue = true;
+            return added;
+        }
+        long hash = mix(value);
+        return segmentFor(hash).add(value, hash);
+    }
+
+    /**
+     * @param value
+     * @return true if the value has been added
+     */
+    public boolean contains(long value){
+        if (value == EMPTY){
+            return containsEmptyValue;
+        }
+        long hash = mix(value);
+        return segmentFor(hash).contains(value, hash);
+    }
+
+    /**
+     * @return number of values in the set, not a snapshot under concurrent adds
+     */
+    public long size(){
+        long size = containsEmptyValue ? 1 : 0;
+        for (Segment segment : segments){
+            size += segment.size;
+        }
+        return size;
+    }
+
+    private Segment segmentFor(long hash){
+        return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+    }
+
+    /**
+     * Murmur3 finalizer, so that sequential ids spread over segments and slots.
+     */
+    private static long mix(long value){
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static int tableSizeFor(int capacity){
+        return capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private long[] table;
+        private volatile int size;
+
+        Segment(int capacity){
+            this.table = new long[capacity];
+        }
+
+        boolean contains(long value, long hash){
+            long stamp = lock.tryOptimisticRead();
+            boolean found = probe(table, value, hash);
+            if (lock.validate(stamp)){
+                return found;
+            }
+            stamp = lock.readLock();
+            try{
+                return probe(table, value, hash);
+            }
+            finally{
+                lock.unlockRead(stamp);
+            }
+        }
+
+        boolean add(long value, long hash){
+            long stamp = lock.writeLock();
+            try{
+                if (probe(table, value, hash)){
+                    return false;
+                }
+                if ((size + 1) * 4L > table.length * 3L){
+                    table = rehash(table);
+                }
+                insert(table, value, hash);
+                size++;
+                return true;
+            }
+            finally{
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private static boolean probe(long[] table, long value, long hash){
+            int mask = table.length - 1;
+            for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask){
+                long current = table[slot];
+                if (current == value){
+                    return true;
+                }
+                if (current == EMPTY){
+                    return false;
+                }
+            }
+        }
+
+        private static void insert(long[] table, long value, long hash){
+            int mask = table.length - 1;
+            int slot = (int) hash & mask;
+            while (table[slot] != EMPTY){
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = value;
+        }
+
+        private static long[] rehash(long[] table){
+            long[] resized = new long[table.length << 1];
+            for (long value : table){
+                if (value != EMPTY){
+                    insert(resized, value, mix(value));
+                }
+            }
+            return resized;
+        }
+    }
+}
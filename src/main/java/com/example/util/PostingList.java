@@ -0,0 +1,142 @@
+package com.example.util;
+
+import java.util.Arrays;
+
+/**
+ * Immutable sorted set of ids stored as delta encoded varints.
+ *
+ * Ids mostly arrive in increasing order, so adding one larger than the last is an append of the few bytes its
+ * gap takes; anything else re-encodes the list. Each change returns a new list, which lets readers use a list
+ * without locking while writers replace it.
+ */
+public final class PostingList {
+    public static final PostingList EMPTY = new PostingList(new byte[0], 0, 0);
+
+    private final byte[] data;
+    private final int size;
+    private final long last;
+
+    private PostingList(byte[] data, int size, long last){
+        this.data = data;
+        this.size = size;
+        this.last = last;
+    }
+
+    /**
+     * @param id non negative
+     * @return list containing the id
+     */
+    public PostingList with(long id){
+        if (size > 0 && id <= last){
+            long[] ids = toArray();
+            int index = Arrays.binarySearch(ids, id);
+            if (index >= 0){
+                return this;
+            }
+            int insertAt = -index - 1;
+            long[] grown = new long[ids.length + 1];
+            System.arraycopy(ids, 0, grown, 0, insertAt);
+            grown[insertAt] = id;
+            System.arraycopy(ids, insertAt, grown, insertAt + 1, ids.length - insertAt);
+            return of(grown, grown.length);
+        }
+        byte[] grown = Arrays.copyOf(data, data.length + varintLength(id - last));
+        writeVarint(grown, data.length, id - last);
+        return new PostingList(grown, size + 1, id);
+    }
+
+    /**
+     * @param id
+     * @return list without the id
+     */
+    public PostingList without(long id){
+        if (size == 0 || id > last){
+            return this;
+        }
+        long[] ids = toArray();
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0){
+            return this;
+        }
+        System.arraycopy(ids, index + 1, ids, index, ids.length - index - 1);
+        return of(ids, ids.length - 1);
+    }
+
+    /**
+     * @return ids in increasing order
+     */
+    public long[] toArray(){
+        long[] ids = new long[size];
+        long value = 0;
+        int position = 0;
+        for (int i = 0; i < size; i++){
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                delta |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            value += delta;
+            ids[i] = value;
+        }
+        return ids;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * @return number of bytes used by the encoded ids
+     */
+    public int encodedBytes(){
+        return data.length;
+    }
+
+    /**
+     * @param ids sorted, distinct and non negative
+     * @param count number of leading ids to encode
+     */
+    private static PostingList of(long[] ids, int count){
+        if (count == 0){
+            return EMPTY;
+        }
+        int length = 0;
+        long previous = 0;
+        for (int i = 0; i < count; i++){
+            length += varintLength(ids[i] - previous);
+            previous = ids[i];
+        }
+        byte[] data = new byte[length];
+        int position = 0;
+        previous = 0;
+        for (int i = 0; i < count; i++){
+            position = writeVarint(data, position, ids[i] - previous);
+            previous = ids[i];
+        }
+        return new PostingList(data, count, ids[count - 1]);
+    }
+
+    private static int varintLength(long value){
+        int length = 1;
+        while ((value >>>= 7) != 0){
+            length++;
+        }
+        return length;
+    }
+
+    private static int writeVarint(byte[] data, int position, long value){
+        while ((value & ~0x7fL) != 0){
+            data[position++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        data[position++] = (byte) value;
+        return position;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe scalable Bloom filter over strings.
+ *
+ * The filter is a chain of plain Bloom filters. When the newest stage has taken as many values as it was sized
+ * for, a new stage is appended with GROWTH times the capacity and TIGHTENING times the false positive rate, so the
+ * compound false positive rate stays below twice the initial target however many values are added.
+ */
+public class ScalableBloomFilter {
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param initialCapacity number of values the first stage is sized for
+     * @param falsePositiveRate target rate of the first stage
+     */
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate){
+        stages.add(new Stage(Math.max(1, initialCapacity), falsePositiveRate));
+    }
+
+    /**
+     * @param value
+     */
+    public void add(String value){
+        long[] hashes = hash(value);
+        Stage last = stages.get(stages.size() - 1);
+        if (last.count.get() >= last.capacity){
+            last = grow(last);
+        }
+        last.add(hashes[0], hashes[1]);
+    }
+
+    /**
+     * @param value
+     * @return false if the value was definitely never added, true if it probably was
+     */
+    public boolean mightContain(String value){
+        long[] hashes = hash(value);
+        for (Stage stage : stages){
+            if (stage.mightContain(hashes[0], hashes[1])){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return number of values added
+     */
+    public long count(){
+        long count = 0;
+        for (Stage stage : stages){
+            count += stage.count.get();
+        }
+        return count;
+    }
+
+    /**
+     * @return number of chained stages
+     */
+    public int stageCount(){
+        return stages.size();
+    }
+
+    /**
+     * Estimate of the current false positive rate from how full each stage's bit array is.
+     * @return probability that mightContain returns true for a value never added
+     */
+    public double expectedFalsePositiveRate(){
+        double allStagesNegative = 1.0;
+        for (Stage stage : stages){
+            allStagesNegative *= 1.0 - stage.expectedFalsePositiveRate();
+        }
+        return 1.0 - allStagesNegative;
+    }
+
+    private synchronized Stage grow(Stage full){
+        Stage last = stages.get(stages.size() - 1);
+        if (last != full){
+            return last;
+        }
+        Stage next = new Stage(full.capacity * GROWTH, full.falsePositiveRate * TIGHTENING);
+        stages.add(next);
+        return next;
+    }
+
+    /**
+     * Two independent 64 bit hashes of the UTF-8 bytes; stages derive their k probe positions from them by double
+     * hashing.
+     */
+    private static long[] hash(String value){
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long h1 = 0xcbf29ce484222325L;
+        long h2 = 0x84222325cbf29ce4L;
+        for (byte b : bytes){
+            h1 = (h1 ^ (b & 0xff)) * 0x100000001b3L;
+            h2 = (h2 ^ (b & 0xff)) * 0x9e3779b97f4a7c15L;
+        }
+        return new long[] {mix(h1), mix(h2) | 1};
+    }
+
+    private static long mix(long value){
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static final class Stage {
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final int hashCount;
+        private final long bitCount;
+        private final AtomicLongArray bits;
+        private final AtomicLong count = new AtomicLong();
+
+        Stage(long capacity, double falsePositiveRate){
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.max(1, (optimalBits + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = words * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+
+        void add(long h1, long h2){
+            for (int i = 0; i < hashCount; i++){
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current = bits.get(word);
+                while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)){
+                    current = bits.get(word);
+                }
+            }
+            count.incrementAndGet();
+        }
+
+        boolean mightContain(long h1, long h2){
+            for (int i = 0; i < hashCount; i++){
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double expectedFalsePositiveRate(){
+            long set = 0;
+            for (int i = 0; i < bits.length(); i++){
+                set += Long.bitCount(bits.get(i));
+            }
+            return Math.pow((double) set / bitCount, hashCount);
+        }
+    }
+}
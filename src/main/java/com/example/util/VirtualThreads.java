@@ -0,0 +1,50 @@
+package com.example.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads from code compiled for Java 11.
+ *
+ * The build still targets Java 11, which has no virtual thread API, so the Java 21 factory methods are looked up
+ * reflectively when a virtual thread executor is asked for.
+ */
+public final class VirtualThreads {
+    private VirtualThreads(){
+    }
+
+    /**
+     * @return true if the running JDK has virtual threads
+     */
+    public static boolean isSupported(){
+        try{
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        }
+        catch(NoSuchMethodException e){
+            return false;
+        }
+    }
+
+    /**
+     * @param namePrefix prefix of the thread names, followed by a counter
+     * @return executor starting a new virtual thread for every task
+     * @throws IllegalStateException if the running JDK has no virtual threads
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix){
+        if (!isSupported()){
+            throw new IllegalStateException("Virtual threads need Java 21 or later, this is Java " + Runtime.version() + ".");
+        }
+        try{
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        }
+        catch(ReflectiveOperationException e){
+            throw new IllegalStateException("Virtual threads could not be created.", e);
+        }
+    }
+}
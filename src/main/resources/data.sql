@@ -1,17 +1,29 @@
+drop table if exists follow;
 drop table if exists message;
 drop table if exists account;
 create table account (
-    accountId int primary key auto_increment,
+    accountId bigint primary key auto_increment,
     username varchar(255) not null unique,
     password varchar(255)
 );
 create table message (
-    messageId int primary key auto_increment,
-    postedBy int,
+    messageId bigint primary key auto_increment,
+    postedBy bigint,
     messageText varchar(255),
-    timePostedEpoch bigint,
-    foreign key (postedBy) references account(accountId)
+    timePostedEpoch bigint
 );
+create index message_time_idx on message (timePostedEpoch, messageId);
+create index message_poster_time_idx on message (postedBy, timePostedEpoch desc, messageId desc);
+-- Added after the index so that the foreign key reuses it rather than creating one on postedBy alone
+alter table message add foreign key (postedBy) references account(accountId);
+create table follow (
+    followerId bigint,
+    followeeId bigint,
+    primary key (followerId, followeeId),
+    foreign key (followerId) references account(accountId),
+    foreign key (followeeId) references account(accountId)
+);
+create index follow_followee_idx on follow (followeeId, followerId);
 
 -- Starting test values with ids of 9999 to avoid test issues
 insert into account values (9999, 'testuser1', 'password');
@@ -0,0 +1,10 @@
+-- Migration for databases created before accounts could follow each other.
+
+create table follow (
+    followerId bigint,
+    followeeId bigint,
+    primary key (followerId, followeeId),
+    foreign key (followerId) references account(accountId),
+    foreign key (followeeId) references account(accountId)
+);
+create index follow_followee_idx on follow (followeeId, followerId);
@@ -0,0 +1,6 @@
+-- Migration for databases created before the time-range indexes were added to data.sql.
+-- message_time_idx serves /messages ordered or filtered by time; message_poster_time_idx serves
+-- /accounts/{accountId}/messages, newest first.
+
+create index message_time_idx on message (timePostedEpoch, messageId);
+create index message_poster_time_idx on message (postedBy, timePostedEpoch desc, messageId desc);
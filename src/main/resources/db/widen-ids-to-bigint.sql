@@ -0,0 +1,14 @@
+-- Migration for databases created before ids were widened to 64 bits.
+-- data.sql already creates the new layout; this script upgrades an existing schema in place. On databases that
+-- refuse to change the type of a referenced column, drop the postedBy foreign key first and add it back after.
+
+alter table message alter column postedBy set data type bigint;
+alter table message alter column messageId set data type bigint;
+alter table account alter column accountId set data type bigint;
+
+-- With app.id.strategy=sequence ids are handed out in blocks of 50 (pooled-lo), so the sequence must step by the
+-- same amount and restart above the largest id already in use.
+alter sequence hibernate_sequence increment by 50;
+alter sequence hibernate_sequence restart with (
+    select greatest(coalesce(max(accountId), 0), coalesce((select max(messageId) from message), 0)) + 1 from account
+);
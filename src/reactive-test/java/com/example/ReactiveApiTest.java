@@ -0,0 +1,219 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.controller.ReactiveSocialMediaController;
+import com.example.controller.SocialMediaController;
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ReactiveApiTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app with the reactive profile, and create a new
+     * webClient and ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {"--spring.profiles.active=reactive"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * The reactive profile replaces the servlet controller.
+     */
+    @Test
+    public void reactiveControllerServesRoutes() {
+        Assertions.assertEquals(1, app.getBeansOfType(ReactiveSocialMediaController.class).size());
+        Assertions.assertTrue(app.getBeansOfType(SocialMediaController.class).isEmpty());
+    }
+
+    /**
+     * Registering, registering again and logging in through the reactive stack.
+     * 
+     * Expected Response:
+     *  Status Code: 200, then 409 for the duplicate, then 200 with a session token
+     */
+    @Test
+    public void registerAndLogin() throws IOException, InterruptedException {
+        String body = "{\"username\":\"reactiveuser\",\"password\":\"password\"}";
+        HttpResponse<String> response = post("/register", body);
+        Assertions.assertEquals(200, response.statusCode());
+        Account registered = objectMapper.readValue(response.body(), Account.class);
+        Assertions.assertEquals("reactiveuser", registered.getUsername());
+
+        Assertions.assertEquals(409, post("/register", body).statusCode());
+        Assertions.assertEquals(400, post("/register", "{\"username\":\"\",\"password\":\"password\"}").statusCode());
+
+        response = post("/login", body);
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(registered, objectMapper.readValue(response.body(), Account.class));
+        Assertions.assertTrue(response.headers().firstValue("X-Session-Token").isPresent());
+        Assertions.assertEquals(401, post("/login", "{\"username\":\"reactiveuser\",\"password\":\"wrong\"}").statusCode());
+    }
+
+    /**
+     * Posting a message and reading it back by id, by account and one page at a time.
+     * 
+     * Expected Response:
+     *  Status Code: 200, with the next page cursor in the X-Next-Cursor header
+     */
+    @Test
+    public void postAndRetrieveMessages() throws IOException, InterruptedException {
+        HttpResponse<String> response = post("/messages", "{\"postedBy\":9999, \"messageText\": \"reactive post\", \"timePostedEpoch\": 1669947800}");
+        Assertions.assertEquals(200, response.statusCode());
+        Message posted = objectMapper.readValue(response.body(), Message.class);
+
+        Assertions.assertEquals(posted, objectMapper.readValue(get("/messages/" + posted.getMessageId()).body(), Message.class));
+        List<Message> byAccount = objectMapper.readValue(get("/accounts/9999/messages").body(), new TypeReference<List<Message>>(){});
+        Assertions.assertTrue(byAccount.contains(posted));
+
+        response = get("/messages?limit=1");
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(List.of(posted), objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){}));
+        String cursor = response.headers().firstValue("X-Next-Cursor").orElseThrow();
+        List<Message> nextPage = objectMapper.readValue(get("/messages?limit=5&after=" + cursor).body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(3, nextPage.size());
+        Assertions.assertEquals(400, get("/messages?after=bogus").statusCode());
+
+        Assertions.assertEquals(List.of(posted), objectMapper.readValue(get("/messages/search?q=reactive").body(), new TypeReference<List<Message>>(){}));
+    }
+
+    /**
+     * Invalid messages and unknown posters are refused, and a missing message reads as an empty body.
+     * 
+     * Expected Response:
+     *  Status Code: 400 for the invalid posts, 200 with an empty body for the missing message
+     */
+    @Test
+    public void invalidMessagesRefused() throws IOException, InterruptedException {
+        Assertions.assertEquals(400, post("/messages", "{\"postedBy\":9999, \"messageText\": \"\", \"timePostedEpoch\": 1669947800}").statusCode());
+        Assertions.assertEquals(400, post("/messages", "{\"postedBy\":1234, \"messageText\": \"hello\", \"timePostedEpoch\": 1669947800}").statusCode());
+        HttpResponse<String> response = get("/messages/100");
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals("", response.body());
+    }
+
+    /**
+     * Updating and deleting messages through the reactive stack.
+     * 
+     * Expected Response:
+     *  Status Code: 200 with the number of rows updated, 400 when updating a missing message
+     */
+    @Test
+    public void updateAndDeleteMessages() throws IOException, InterruptedException {
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"updated\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals("1", response.body());
+        Assertions.assertEquals("updated", objectMapper.readValue(get("/messages/9999").body(), Message.class).getMessageText());
+
+        HttpRequest missingPatchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/100"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"updated\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(400, webClient.send(missingPatchRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?ids=9999,9997"))
+                .DELETE()
+                .build();
+        response = webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals("2", response.body());
+        List<Message> remaining = objectMapper.readValue(get("/messages").body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(List.of(new Message(9996L, 9996L, "test message 3", 1669947792L)), remaining);
+    }
+
+    /**
+     * Exporting every message as newline delimited JSON.
+     * 
+     * Expected Response:
+     *  Status Code: 200, one message per line
+     */
+    @Test
+    public void exportMessages() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("/messages/export");
+        Assertions.assertEquals(200, response.statusCode());
+        String[] lines = response.body().split("\n");
+        Assertions.assertEquals(3, lines.length);
+        Assertions.assertEquals(9996L, objectMapper.readValue(lines[0], Message.class).getMessageId());
+    }
+
+    /**
+     * Sending GET localhost:8080/messages/9997 with the ETag of the previous response, before and after posting
+     * a message as another account.
+     * 
+     * Expected Response:
+     *  Status Code: 304 for the message, whose tag is unaffected, and 200 with a new tag for /messages
+     */
+    @Test
+    public void conditionalGets() throws IOException, InterruptedException {
+        String messageTag = get("/messages/9997").headers().firstValue("ETag").orElseThrow();
+        String allTag = get("/messages").headers().firstValue("ETag").orElseThrow();
+        post("/messages", "{\"postedBy\":9999, \"messageText\": \"reactive post\", \"timePostedEpoch\": 1669947800}");
+
+        HttpRequest messageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9997"))
+                .header("If-None-Match", messageTag)
+                .build();
+        HttpResponse<String> response = webClient.send(messageRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(304, response.statusCode());
+
+        HttpRequest allRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .header("If-None-Match", allTag)
+                .build();
+        response = webClient.send(allRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertNotEquals(allTag, response.headers().firstValue("ETag").orElseThrow());
+    }
+}
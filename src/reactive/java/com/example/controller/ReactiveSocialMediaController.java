@@ -0,0 +1,382 @@
+package com.example.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.example.cache.MessageVersions;
+import com.example.dto.MessagePage;
+import com.example.entity.*;
+import com.example.service.*;
+import com.example.session.SessionFilter;
+import com.example.session.SessionStore;
+import com.example.exception.*;
+
+/**
+ * Non-blocking counterpart of SocialMediaController, active with the reactive profile. It serves the same routes
+ * with the same status codes on a small number of event loop threads: accounts and messages are handled through
+ * R2DBC, while follows, home feeds and batch posts are still served by the JPA services on a bounded elastic
+ * pool.
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveSocialMediaController {
+    private final ReactiveAccountService accountService;
+    private final ReactiveMessageService messageService;
+    private final MessageService blockingMessageService;
+    private final FeedService feedService;
+    private final SessionStore sessionStore;
+    private final MessageVersions messageVersions;
+
+    @Autowired
+    public ReactiveSocialMediaController(ReactiveAccountService accountService, ReactiveMessageService messageService,
+                                         MessageService blockingMessageService, FeedService feedService,
+                                         SessionStore sessionStore, MessageVersions messageVersions){
+        this.accountService = accountService;
+        this.messageService = messageService;
+        this.blockingMessageService = blockingMessageService;
+        this.feedService = feedService;
+        this.sessionStore = sessionStore;
+        this.messageVersions = messageVersions;
+    }
+
+    //Endpoints
+
+    /**
+     * This endpoint handles account registration via a POST to /register.
+     * 
+     * @param account not containing an ID
+     * @return http response containing fully formed account.
+     */
+    @PostMapping("/register")
+    public Mono<ResponseEntity<?>> registerAccount(@RequestBody Account account){
+        return accountService.registerAccount(account)
+                .<ResponseEntity<?>>map(newAccount -> ResponseEntity.status(200).body(newAccount))
+                .onErrorResume(DuplicateUsernameException.class, e -> Mono.just(ResponseEntity.status(409).body(e.getMessage())))
+                .onErrorResume(RegistrationException.class, e -> Mono.just(ResponseEntity.status(400).body(e.getMessage())))
+                .onErrorResume(HashingUnavailableException.class, e -> Mono.just(ResponseEntity.status(503)
+                        .header(HttpHeaders.RETRY_AFTER, SocialMediaController.RETRY_AFTER_SECONDS).body(e.getMessage())));
+    }
+
+    /**
+     * This endpoint handles account logins via a POST to /login, issuing a session token in the X-Session-Token
+     * header.
+     * 
+     * @param account not containing an ID
+     * @return http response containing fully formed account.
+     */
+    @PostMapping("/login")
+    public Mono<ResponseEntity<?>> verifyLogin(@RequestBody Account account){
+        return accountService.verifyLogin(account)
+                .<ResponseEntity<?>>map(verifiedAccount -> ResponseEntity.status(200)
+                        .header(SocialMediaController.SESSION_TOKEN_HEADER, sessionStore.issue(verifiedAccount.getAccountId()))
+                        .body(verifiedAccount))
+                .onErrorResume(AccountDoesNotExistException.class, e -> Mono.just(ResponseEntity.status(401).body(e.getMessage())))
+                .onErrorResume(HashingUnavailableException.class, e -> Mono.just(ResponseEntity.status(503)
+                        .header(HttpHeaders.RETRY_AFTER, SocialMediaController.RETRY_AFTER_SECONDS).body(e.getMessage())));
+    }
+
+    /**
+     * This endpoint ends the session whose token is sent with a POST to /logout.
+     * 
+     * @param token session token resolved by the session filter
+     * @return http response with no body, 401 if no session token was sent
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestAttribute(name = SessionFilter.TOKEN, required = false) String token){
+        if (token == null){
+            return ResponseEntity.status(401).body(null);
+        }
+        sessionStore.revoke(token);
+        return ResponseEntity.status(200).body(null);
+    }
+
+    /**
+     * This endpoint handles the posting of messages via a POST to /messages. When a session token is sent the
+     * message is posted by the logged in account.
+     * 
+     * @param message not containing an ID
+     * @param sessionAccountId account resolved from the session token, if any
+     * @return http response containing fully formed message
+     */
+    @PostMapping("/messages")
+    public Mono<ResponseEntity<?>> postMessage(@RequestBody Message message,
+                                               @RequestAttribute(name = SessionFilter.ACCOUNT_ID, required = false) Long sessionAccountId){
+        Mono<Message> postedMessage = sessionAccountId == null
+                ? messageService.postMessage(message)
+                : messageService.postMessageAs(sessionAccountId, message);
+        return postedMessage
+                .<ResponseEntity<?>>map(posted -> ResponseEntity.status(200).body(posted))
+                .onErrorResume(MessageCreationException.class, e -> Mono.just(ResponseEntity.status(400).body(e.getMessage())))
+                .onErrorResume(ForbiddenActionException.class, e -> Mono.just(ResponseEntity.status(403).body(e.getMessage())));
+    }
+
+    /**
+     * This endpoint handles the posting of many messages at once via a POST to /messages/batch.
+     * 
+     * @param messages not containing IDs
+     * @return http response containing one result per message, each with its own status code
+     */
+    @PostMapping("/messages/batch")
+    public Mono<ResponseEntity<?>> postMessages(@RequestBody List<Message> messages){
+        return blocking(() -> blockingMessageService.postMessages(messages))
+                .<ResponseEntity<?>>map(results -> ResponseEntity.status(200).body(results))
+                .onErrorResume(MessageCreationException.class, e -> Mono.just(ResponseEntity.status(400).body(e.getMessage())));
+    }
+
+    /**
+     * This endpoint handles the retrival of all messages via a GET to /messages, or of one page of them when
+     * limit, after, since or until is supplied. ETags work as in SocialMediaController.
+     * 
+     * @param limit maximum number of messages to return, at least 1
+     * @param after cursor returned with the previous page
+     * @param since earliest timePostedEpoch to return
+     * @param until timePostedEpoch before which messages are returned
+     * @param ifNoneMatch ETags the client already holds
+     * @return http response containing list of all messages
+     */
+    @GetMapping("/messages")
+    public Mono<ResponseEntity<?>> getAllMessages(@RequestParam(required = false) Integer limit,
+                                                  @RequestParam(required = false) String after,
+                                                  @RequestParam(required = false) Long since,
+                                                  @RequestParam(required = false) Long until,
+                                                  @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        String etag = messageVersions.allMessagesTag();
+        if (ConditionalRequests.notModified(ifNoneMatch, etag)){
+            return Mono.just(ResponseEntity.status(304).eTag(etag).build());
+        }
+        if (limit == null && after == null && since == null && until == null){
+            return Mono.just(ResponseEntity.status(200).eTag(etag).body(messageService.getAllMessages()));
+        }
+        return pageResponse(messageService.getMessagesPage(limit, after, since, until), etag);
+    }
+
+    /**
+     * This endpoint handles the export of every message via a GET to /messages/export, as newline delimited JSON
+     * written as rows arrive.
+     * 
+     * @return every message
+     */
+    @GetMapping(value = "/messages/export", produces = SocialMediaController.NDJSON)
+    public Flux<Message> exportMessages(){
+        return messageService.getAllMessages();
+    }
+
+    /**
+     * This endpoint handles the search of messages by text via a GET to /messages/search.
+     * 
+     * @param q search query
+     * @param limit maximum number of messages to return, at least 1
+     * @return http response containing matching messages, newest first
+     */
+    @GetMapping("/messages/search")
+    public Mono<ResponseEntity<?>> searchMessages(@RequestParam String q, @RequestParam(required = false) Integer limit){
+        return messageService.searchMessages(q, limit)
+                .<ResponseEntity<?>>map(messages -> ResponseEntity.status(200).body(messages))
+                .onErrorResume(InvalidSearchException.class, e -> Mono.just(ResponseEntity.status(400).body(e.getMessage())));
+    }
+
+    /**
+     * This endpoint handles the retrival of a message given its ID via a Get request to /messages/{messageId}
+     * 
+     * @param messageId
+     * @param ifNoneMatch ETags the client already holds
+     * @return http response containing messages matching the id
+     */
+    @GetMapping("/messages/{messageId}")
+    public Mono<ResponseEntity<?>> getMessageById(@PathVariable Long messageId,
+                                                  @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        String etag = messageVersions.messageTag(messageId);
+        if (ConditionalRequests.notModified(ifNoneMatch, etag)){
+            return Mono.just(ResponseEntity.status(304).eTag(etag).build());
+        }
+        return messageService.getMessageById(messageId)
+                .<ResponseEntity<?>>map(message -> ResponseEntity.status(200).eTag(etag).body(message))
+                .defaultIfEmpty(ResponseEntity.status(200).eTag(etag).body(null));
+    }
+
+    /**
+     * This endpoint handles the deletion of a message given its Id via a Delete request to /messages/{messageId}
+     * 
+     * @param messageId
+     * @return http response containing the number of rows updated.
+     */
+    @DeleteMapping("/messages/{messageId}")
+    public Mono<ResponseEntity<?>> deleteMessageById(@PathVariable Long messageId){
+        return rowsUpdatedResponse(messageService.deleteMessageById(messageId));
+    }
+
+    /**
+     * This endpoint handles the deletion of many messages given their Ids via a Delete request to /messages?ids=...
+     * 
+     * @param ids comma separated message ids
+     * @return http response containing the number of rows updated.
+     */
+    @DeleteMapping("/messages")
+    public Mono<ResponseEntity<?>> deleteMessagesByIds(@RequestParam List<Long> ids){
+        return rowsUpdatedResponse(messageService.deleteMessagesByIds(ids));
+    }
+
+    /**
+     * This endpoint handles the updating of a message given its Id via a Patch request to /messages/{messageId}
+     * When a session token is sent only messages posted by the logged in account are updated.
+     * 
+     * @param messageId
+     * @param message
+     * @param sessionAccountId account resolved from the session token, if any
+     * @return http response containing the number of rows updated.
+     */
+    @PatchMapping("/messages/{messageId}")
+    public Mono<ResponseEntity<?>> updateMessageById(@PathVariable Long messageId, @RequestBody Message message,
+                                                     @RequestAttribute(name = SessionFilter.ACCOUNT_ID, required = false) Long sessionAccountId){
+        Mono<Integer> rowsUpdated = sessionAccountId == null
+                ? messageService.updateMessageById(messageId, message)
+                : messageService.updateMessageByIdAs(sessionAccountId, messageId, message);
+        return rowsUpdated
+                .<ResponseEntity<?>>map(rows -> rows > 0 ? ResponseEntity.status(200).body(rows) : ResponseEntity.status(400).body(null))
+                .onErrorResume(MessageCreationException.class, e -> Mono.just(ResponseEntity.status(400).body(e.getMessage())));
+    }
+
+    /**
+     * This endpoint handles the retrival of all messages posted by an account via a GET to
+     * /accounts/{accountId}/messages. Pagination and time ranges work the same way as for /messages.
+     * 
+     * @param accountId
+     * @param limit maximum number of messages to return, at least 1
+     * @param after cursor returned with the previous page
+     * @param since earliest timePostedEpoch to return
+     * @param until timePostedEpoch before which messages are returned
+     * @param ifNoneMatch ETags the client already holds
+     * @return http response containing list of messages posted by the account
+     */
+    @GetMapping("/accounts/{accountId}/messages")
+    public Mono<ResponseEntity<?>> getAllMessagesByAccount(@PathVariable Long accountId,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) String after,
+                                                           @RequestParam(required = false) Long since,
+                                                           @RequestParam(required = false) Long until,
+                                                           @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        String etag = messageVersions.accountTag(accountId);
+        if (ConditionalRequests.notModified(ifNoneMatch, etag)){
+            return Mono.just(ResponseEntity.status(304).eTag(etag).build());
+        }
+        if (limit == null && after == null && since == null && until == null){
+            return Mono.just(ResponseEntity.status(200).eTag(etag).body(messageService.getAllMessagesByAccount(accountId)));
+        }
+        return pageResponse(messageService.getMessagesPageByAccount(accountId, limit, after, since, until), etag);
+    }
+
+    /**
+     * This endpoint handles the deletion of every message posted by an account via a Delete request to
+     * /accounts/{accountId}/messages
+     * 
+     * @param accountId
+     * @return http response containing the number of rows updated.
+     */
+    @DeleteMapping("/accounts/{accountId}/messages")
+    public Mono<ResponseEntity<?>> deleteMessagesByAccount(@PathVariable Long accountId){
+        return rowsUpdatedResponse(messageService.deleteMessagesByAccount(accountId));
+    }
+
+    /**
+     * This endpoint makes one account follow another via a PUT to /accounts/{accountId}/following/{followeeId}.
+     * 
+     * @param accountId following account
+     * @param followeeId account to follow
+     * @param sessionAccountId account resolved from the session token, if any
+     * @return http response with no body
+     */
+    @PutMapping("/accounts/{accountId}/following/{followeeId}")
+    public Mono<ResponseEntity<?>> follow(@PathVariable Long accountId, @PathVariable Long followeeId,
+                                          @RequestAttribute(name = SessionFilter.ACCOUNT_ID, required = false) Long sessionAccountId){
+        if (sessionAccountId != null && !sessionAccountId.equals(accountId)){
+            return Mono.just(ResponseEntity.status(403).body(null));
+        }
+        Mono<ResponseEntity<?>> followed = blocking(() -> {
+            feedService.follow(accountId, followeeId);
+            return ResponseEntity.status(200).body(null);
+        });
+        return followed.onErrorResume(FollowException.class, e -> Mono.just(ResponseEntity.status(400).body(e.getMessage())));
+    }
+
+    /**
+     * This endpoint makes one account stop following another via a Delete request to
+     * /accounts/{accountId}/following/{followeeId}.
+     * 
+     * @param accountId following account
+     * @param followeeId account to stop following
+     * @param sessionAccountId account resolved from the session token, if any
+     * @return http response containing the number of rows updated.
+     */
+    @DeleteMapping("/accounts/{accountId}/following/{followeeId}")
+    public Mono<ResponseEntity<?>> unfollow(@PathVariable Long accountId, @PathVariable Long followeeId,
+                                            @RequestAttribute(name = SessionFilter.ACCOUNT_ID, required = false) Long sessionAccountId){
+        if (sessionAccountId != null && !sessionAccountId.equals(accountId)){
+            return Mono.just(ResponseEntity.status(403).body(null));
+        }
+        return rowsUpdatedResponse(blocking(() -> feedService.unfollow(accountId, followeeId)));
+    }
+
+    /**
+     * This endpoint handles the retrival of an account's home feed via a GET to /accounts/{accountId}/feed.
+     * 
+     * @param accountId
+     * @param limit maximum number of messages to return, at least 1
+     * @param after cursor returned with the previous page
+     * @return http response containing one page of the feed
+     */
+    @GetMapping("/accounts/{accountId}/feed")
+    public Mono<ResponseEntity<?>> getFeed(@PathVariable Long accountId,
+                                           @RequestParam(required = false) Integer limit,
+                                           @RequestParam(required = false) String after){
+        return pageResponse(blocking(() -> feedService.getFeed(accountId, limit, after)));
+    }
+
+    private static Mono<ResponseEntity<?>> pageResponse(Mono<MessagePage> page){
+        return pageResponse(page, null);
+    }
+
+    private static Mono<ResponseEntity<?>> pageResponse(Mono<MessagePage> page, String etag){
+        return page
+                .<ResponseEntity<?>>map(messagePage -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.status(200);
+                    if (etag != null){
+                        response.eTag(etag);
+                    }
+                    if (messagePage.getNextCursor() != null){
+                        response.header(SocialMediaController.NEXT_CURSOR_HEADER, messagePage.getNextCursor());
+                    }
+                    return response.body(messagePage.getMessages());
+                })
+                .onErrorResume(InvalidCursorException.class, e -> Mono.just(ResponseEntity.status(400).body(e.getMessage())));
+    }
+
+    private static Mono<ResponseEntity<?>> rowsUpdatedResponse(Mono<Integer> rowsUpdated){
+        return rowsUpdated.map(rows -> rows > 0 ? ResponseEntity.status(200).body(rows) : ResponseEntity.status(200).body(null));
+    }
+
+    /**
+     * Calls into the JPA services hold a JDBC connection, so they run on the bounded elastic pool rather than
+     * on an event loop thread.
+     */
+    private static <T> Mono<T> blocking(Callable<T> call){
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
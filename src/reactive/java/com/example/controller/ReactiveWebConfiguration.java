@@ -0,0 +1,20 @@
+package com.example.controller;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Tomcat is on the classpath for the servlet stack and would otherwise be picked as the reactive server too,
+ * so the reactive profile asks for Netty explicitly.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveWebConfiguration {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(){
+        return new NettyReactiveWebServerFactory();
+    }
+}
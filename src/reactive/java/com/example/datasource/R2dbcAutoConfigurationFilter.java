@@ -0,0 +1,32 @@
+package com.example.datasource;
+
+import org.springframework.boot.autoconfigure.AutoConfigurationImportFilter;
+import org.springframework.boot.autoconfigure.AutoConfigurationMetadata;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+
+/**
+ * The reactive build puts R2DBC on the classpath for every run, but only the reactive profile uses it. Without this
+ * filter its connection factory would make Spring Boot back off from the JDBC data source that JPA needs.
+ * Registered in META-INF/spring.factories of the reactive build.
+ */
+public class R2dbcAutoConfigurationFilter implements AutoConfigurationImportFilter, EnvironmentAware {
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment){
+        this.environment = environment;
+    }
+
+    @Override
+    public boolean[] match(String[] autoConfigurationClasses, AutoConfigurationMetadata autoConfigurationMetadata){
+        boolean reactive = environment.acceptsProfiles(Profiles.of("reactive"));
+        boolean[] matches = new boolean[autoConfigurationClasses.length];
+        for (int i = 0; i < autoConfigurationClasses.length; i++){
+            String autoConfigurationClass = autoConfigurationClasses[i];
+            matches[i] = reactive || autoConfigurationClass == null || !autoConfigurationClass.contains(".r2dbc.");
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.datasource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.init.DataSourceScriptDatabaseInitializer;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.relational.core.mapping.NamingStrategy;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import com.zaxxer.hikari.HikariDataSource;
+import javax.persistence.Column;
+import javax.persistence.Table;
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * R2DBC support for the reactive profile, which reaches the same database as JPA through spring.r2dbc.url.
+ * Rows are mapped onto the JPA entities using the table and column names of their JPA annotations.
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties({DataSourceProperties.class, SqlInitializationProperties.class})
+public class R2dbcConfiguration {
+
+    /**
+     * Spring Boot backs off from the JDBC data source once a connection factory exists, but JPA still needs it.
+     * With a replica configured ReplicaDataSourceConfiguration provides it instead.
+     */
+    @Bean
+    @ConditionalOnExpression("'${app.datasource.replica.url:}'.isEmpty()")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties){
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public NamingStrategy jpaNamingStrategy(){
+        return new NamingStrategy(){
+            @Override
+            public String getTableName(Class<?> type){
+                Table table = type.getAnnotation(Table.class);
+                return table == null || table.name().isEmpty() ? NamingStrategy.super.getTableName(type) : table.name();
+            }
+
+            @Override
+            public String getColumnName(RelationalPersistentProperty property){
+                Column column = property.findAnnotation(Column.class);
+                return column == null || column.name().isEmpty() ? NamingStrategy.super.getColumnName(property) : column.name();
+            }
+        };
+    }
+
+    /**
+     * Spring Boot prefers R2DBC for running data.sql once a connection factory exists, which would race Hibernate
+     * for the schema. Declaring the JDBC initializer keeps the scripts on the data source, after Hibernate.
+     */
+    @Bean
+    public DataSourceScriptDatabaseInitializer dataSourceScriptDatabaseInitializer(DataSource dataSource,
+                                                                                   SqlInitializationProperties properties){
+        DatabaseInitializationSettings settings = new DatabaseInitializationSettings();
+        settings.setSchemaLocations(properties.getSchemaLocations() == null
+                ? List.of("optional:classpath*:schema.sql") : properties.getSchemaLocations());
+        settings.setDataLocations(properties.getDataLocations() == null
+                ? List.of("optional:classpath*:data.sql") : properties.getDataLocations());
+        settings.setContinueOnError(properties.isContinueOnError());
+        settings.setSeparator(properties.getSeparator());
+        settings.setEncoding(properties.getEncoding());
+        settings.setMode(properties.getMode());
+        return new DataSourceScriptDatabaseInitializer(dataSource, settings);
+    }
+}
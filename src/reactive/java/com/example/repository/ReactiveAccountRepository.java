@@ -0,0 +1,53 @@
+package com.example.repository;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Mono;
+
+import com.example.entity.Account;
+
+/**
+ * R2DBC repository mirroring AccountRepository, accessed by ReactiveAccountService.java. Only used when the
+ * reactive profile is active.
+ */
+public interface ReactiveAccountRepository extends R2dbcRepository<Account, Long>{
+    /**
+     * Insert an account whose id was allocated beforehand.
+     * @param accountId
+     * @param username
+     * @param password encoded hash
+     * @return number of rows inserted
+     */
+    @Modifying
+    @Query("insert into account (accountId, username, password) values (:accountId, :username, :password)")
+    Mono<Integer> insertAccount(@Param("accountId") Long accountId, @Param("username") String username,
+                                @Param("password") String password);
+
+    /**
+     * Find an account using its username.
+     * @param username
+     * @return account with matching username, empty if there is none
+     */
+    @Query("select * from account where username = :username")
+    Mono<Account> findAccountByUsername(@Param("username") String username);
+
+    /**
+     * Replace the stored password hash of an account.
+     * @param accountId
+     * @param password encoded hash
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("update account set password = :password where accountId = :accountId")
+    Mono<Integer> updatePassword(@Param("accountId") Long accountId, @Param("password") String password);
+
+    /**
+     * Check that an account exists without loading it.
+     * @param accountId
+     * @return true if an account has this id
+     */
+    @Query("select count(*) > 0 from account where accountId = :accountId")
+    Mono<Boolean> existsByAccountId(@Param("accountId") Long accountId);
+}
@@ -0,0 +1,188 @@
+package com.example.repository;
+
+import java.util.Collection;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import com.example.entity.Message;
+
+/**
+ * R2DBC repository mirroring MessageRepository, accessed by ReactiveMessageService.java. Only used when the
+ * reactive profile is active.
+ */
+public interface ReactiveMessageRepository extends R2dbcRepository<Message, Long>{
+    /**
+     * Insert a message whose id was allocated beforehand.
+     * @param messageId
+     * @param postedBy
+     * @param messageText
+     * @param timePostedEpoch
+     * @return number of rows inserted
+     */
+    @Modifying
+    @Query("insert into message (messageId, postedBy, messageText, timePostedEpoch)"
+            + " values (:messageId, :postedBy, :messageText, :timePostedEpoch)")
+    Mono<Integer> insertMessage(@Param("messageId") Long messageId, @Param("postedBy") Long postedBy,
+                                @Param("messageText") String messageText, @Param("timePostedEpoch") Long timePostedEpoch);
+
+    /**
+     * Retrieve message by its id
+     * @param messageId
+     * @return message with matching id, empty if there is none
+     */
+    Mono<Message> findMessageByMessageId(Long messageId);
+
+    /**
+     * Retrieve every message whose id is in the given collection
+     * @param messageIds
+     * @return matching messages, in no particular order
+     */
+    @Query("select * from message where messageId in (:messageIds)")
+    Flux<Message> findMessagesByMessageIdIn(@Param("messageIds") Collection<Long> messageIds);
+
+    /**
+     * Retrieve the poster, and only the poster, of a message.
+     * @param messageId
+     * @return account that posted the message, empty if there is no such message
+     */
+    @Query("select postedBy from message where messageId = :messageId")
+    Mono<Long> findPostedByByMessageId(@Param("messageId") Long messageId);
+
+    /**
+     * Deletes message by its id and returns the number of rows updated.
+     * @param messageId
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("delete from message where messageId = :messageId")
+    Mono<Integer> deleteMessageByMessageId(@Param("messageId") Long messageId);
+
+    /**
+     * Deletes every message whose id is in the given collection in a single DELETE statement.
+     * @param messageIds
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("delete from message where messageId in (:messageIds)")
+    Mono<Integer> deleteMessagesByMessageIdIn(@Param("messageIds") Collection<Long> messageIds);
+
+    /**
+     * Retrieve the ids, and only the ids, of messages posted by an account.
+     * @param postedBy
+     * @param limit maximum number of ids to return
+     * @return message ids in ascending order
+     */
+    @Query("select messageId from message where postedBy = :postedBy order by messageId limit :limit")
+    Flux<Long> findMessageIdsByPostedBy(@Param("postedBy") Long postedBy, @Param("limit") int limit);
+
+    /**
+     * Replaces the text of a message in a single UPDATE statement.
+     * @param messageId
+     * @param messageText new text
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("update message set messageText = :messageText where messageId = :messageId")
+    Mono<Integer> updateMessageText(@Param("messageId") Long messageId, @Param("messageText") String messageText);
+
+    /**
+     * Update the text of a message only if it was posted by the given account
+     * @param messageId
+     * @param postedBy
+     * @param messageText new text
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("update message set messageText = :messageText where messageId = :messageId and postedBy = :postedBy")
+    Mono<Integer> updateMessageTextByPoster(@Param("messageId") Long messageId, @Param("postedBy") Long postedBy,
+                                            @Param("messageText") String messageText);
+
+    /**
+     * Retrieve messages by accountId
+     * @param postedBy
+     * @return messages postedBy a particular account, in id order
+     */
+    @Query("select * from message where postedBy = :postedBy order by messageId")
+    Flux<Message> findMessagesByPostedBy(@Param("postedBy") Long postedBy);
+
+    /**
+     * Seek query returning the messages that come after the given (timePostedEpoch, messageId) position and were
+     * posted no earlier than since, newest first. Served by the (timePostedEpoch, messageId) index.
+     * @param since earliest timePostedEpoch to include
+     * @param timePostedEpoch of the last message already seen
+     * @param messageId of the last message already seen
+     * @param limit page size
+     * @return next page of messages
+     */
+    @Query("select * from message"
+            + " where timePostedEpoch >= :since"
+            + " and timePostedEpoch <= :timePostedEpoch"
+            + " and (timePostedEpoch < :timePostedEpoch or messageId < :messageId)"
+            + " order by timePostedEpoch desc, messageId desc"
+            + " limit :limit")
+    Flux<Message> findMessagesBefore(@Param("since") Long since,
+                                     @Param("timePostedEpoch") Long timePostedEpoch,
+                                     @Param("messageId") Long messageId, @Param("limit") int limit);
+
+    /**
+     * Seek query returning the messages of one account that come after the given (timePostedEpoch, messageId)
+     * position and were posted no earlier than since, newest first. Served by the
+     * (postedBy, timePostedEpoch desc, messageId desc) index.
+     * @param postedBy
+     * @param since earliest timePostedEpoch to include
+     * @param timePostedEpoch of the last message already seen
+     * @param messageId of the last message already seen
+     * @param limit page size
+     * @return next page of messages posted by the account
+     */
+    @Query("select * from message"
+            + " where postedBy = :postedBy"
+            + " and timePostedEpoch >= :since"
+            + " and timePostedEpoch <= :timePostedEpoch"
+            + " and (timePostedEpoch < :timePostedEpoch or messageId < :messageId)"
+            + " order by timePostedEpoch desc, messageId desc"
+            + " limit :limit")
+    Flux<Message> findMessagesByPostedByBefore(@Param("postedBy") Long postedBy,
+                                               @Param("since") Long since,
+                                               @Param("timePostedEpoch") Long timePostedEpoch,
+                                               @Param("messageId") Long messageId, @Param("limit") int limit);
+
+    /**
+     * Seek query returning the messages without a timePostedEpoch whose id is below the given one, newest id first.
+     * They come after every dated message, so this continues findMessagesBefore once it runs out.
+     * @param messageId of the last message already seen, or Long.MAX_VALUE
+     * @param limit page size
+     * @return next page of messages without a timePostedEpoch
+     */
+    @Query("select * from message"
+            + " where timePostedEpoch is null and messageId < :messageId"
+            + " order by messageId desc"
+            + " limit :limit")
+    Flux<Message> findUndatedMessagesBefore(@Param("messageId") Long messageId, @Param("limit") int limit);
+
+    /**
+     * Seek query returning the messages of one account without a timePostedEpoch whose id is below the given one,
+     * newest id first. Continues findMessagesByPostedByBefore once it runs out.
+     * @param postedBy
+     * @param messageId of the last message already seen, or Long.MAX_VALUE
+     * @param limit page size
+     * @return next page of the account's messages without a timePostedEpoch
+     */
+    @Query("select * from message"
+            + " where postedBy = :postedBy and timePostedEpoch is null and messageId < :messageId"
+            + " order by messageId desc"
+            + " limit :limit")
+    Flux<Message> findUndatedMessagesByPostedByBefore(@Param("postedBy") Long postedBy,
+                                                      @Param("messageId") Long messageId, @Param("limit") int limit);
+
+    /**
+     * Every message in id order, emitted as rows arrive from the database.
+     * @return all messages
+     */
+    @Query("select * from message order by messageId")
+    Flux<Message> streamAllMessages();
+}
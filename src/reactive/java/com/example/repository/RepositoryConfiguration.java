@@ -0,0 +1,17 @@
+package com.example.repository;
+
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+/**
+ * The reactive repositories share their entities with the JPA ones, so JPA would otherwise claim them as well
+ * and refuse to start. They are left to the R2DBC repository support of the reactive profile.
+ */
+@Configuration
+@EnableJpaRepositories(basePackageClasses = RepositoryConfiguration.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = R2dbcRepository.class))
+public class RepositoryConfiguration {
+}
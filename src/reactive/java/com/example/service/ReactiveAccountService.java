@@ -0,0 +1,127 @@
+package com.example.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import io.r2dbc.spi.R2dbcException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+import com.example.cache.AccountIdIndex;
+import com.example.cache.UsernameFilter;
+import com.example.entity.Account;
+import com.example.exception.AccountDoesNotExistException;
+import com.example.exception.DuplicateUsernameException;
+import com.example.exception.RegistrationException;
+import com.example.id.EntityIdAllocator;
+import com.example.repository.ReactiveAccountRepository;
+import com.example.security.HashingExecutor;
+import com.example.security.PasswordHasher;
+
+/**
+ * Non-blocking counterpart of AccountService used by the reactive profile. Accounts are read and written through
+ * R2DBC, with the same rules and errors as AccountService.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveAccountService {
+    private final ReactiveAccountRepository accountRepository;
+    private final EntityIdAllocator idAllocator;
+    private final AccountIdIndex accountIdIndex;
+    private final UsernameFilter usernameFilter;
+    private final PasswordHasher passwordHasher;
+    private final HashingExecutor hashingExecutor;
+
+    @Autowired
+    public ReactiveAccountService(ReactiveAccountRepository accountRepository, EntityIdAllocator idAllocator,
+                                  AccountIdIndex accountIdIndex, UsernameFilter usernameFilter,
+                                  PasswordHasher passwordHasher, HashingExecutor hashingExecutor){
+        this.accountRepository = accountRepository;
+        this.idAllocator = idAllocator;
+        this.accountIdIndex = accountIdIndex;
+        this.usernameFilter = usernameFilter;
+        this.passwordHasher = passwordHasher;
+        this.hashingExecutor = hashingExecutor;
+    }
+
+    /**
+     * Persist and return a new account if the provided input is valid. As in AccountService, duplicates are
+     * detected by the unique constraint on username.
+     * 
+     * @param account to be added
+     * @return fully formed account once persisted, carrying the submitted password rather than its hash; fails
+     * with DuplicateUsernameException, RegistrationException or HashingUnavailableException
+     */
+    public Mono<Account> registerAccount(Account account){
+        if (account.getUsername().isBlank()){
+            return Mono.error(new RegistrationException("Username cannot be blank."));
+        }
+        if (account.getPassword().length() < 4){
+            return Mono.error(new RegistrationException("Password must be 4 or more characters long."));
+        }
+        return Mono.zip(hashed(() -> passwordHasher.hash(account.getPassword())),
+                        blocking(() -> idAllocator.nextId(Account.class)))
+                .flatMap(hashAndId -> accountRepository.insertAccount(hashAndId.getT2(), account.getUsername(), hashAndId.getT1())
+                        .thenReturn(hashAndId.getT2()))
+                .onErrorMap(DataIntegrityViolationException.class, e -> isUniqueViolation(e)
+                        ? new DuplicateUsernameException("Username already exists.")
+                        : new RegistrationException("Account could not be registered."))
+                .map(accountId -> {
+                    accountIdIndex.add(accountId);
+                    usernameFilter.add(account.getUsername());
+                    return new Account(accountId, account.getUsername(), account.getPassword());
+                });
+    }
+
+    /**
+     * Verify the existance of an account using both username and password, rehashing a legacy or outdated
+     * password once it has been verified.
+     * 
+     * @param account being verified
+     * @return verified account, carrying the submitted password rather than its hash; fails with
+     * AccountDoesNotExistException or HashingUnavailableException
+     */
+    public Mono<Account> verifyLogin(Account account){
+        if (account.getUsername() == null || account.getPassword() == null || !usernameFilter.mightExist(account.getUsername())){
+            return Mono.error(new AccountDoesNotExistException("An account matching these login details does not exist"));
+        }
+        return accountRepository.findAccountByUsername(account.getUsername())
+                .switchIfEmpty(Mono.defer(() -> {
+                    usernameFilter.recordFalsePositive();
+                    return Mono.error(new AccountDoesNotExistException("An account matching these login details does not exist"));
+                }))
+                .flatMap(storedAccount -> {
+                    String stored = storedAccount.getPassword();
+                    return hashed(() -> {
+                        if (!passwordHasher.matches(account.getPassword(), stored)){
+                            return null;
+                        }
+                        return Optional.ofNullable(passwordHasher.needsRehash(stored) ? passwordHasher.hash(account.getPassword()) : null);
+                    })
+                    .switchIfEmpty(Mono.error(new AccountDoesNotExistException("An account matching these login details does not exist")))
+                    .flatMap(rehash -> rehash.isPresent()
+                            ? accountRepository.updatePassword(storedAccount.getAccountId(), rehash.get()).then()
+                            : Mono.empty())
+                    .thenReturn(new Account(storedAccount.getAccountId(), storedAccount.getUsername(), account.getPassword()));
+                });
+    }
+
+    /**
+     * Hashing keeps its bounded pool; only the wait for the result is moved off the event loop.
+     */
+    private <T> Mono<T> hashed(Callable<T> task){
+        return blocking(() -> hashingExecutor.run(task));
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> task){
+        return Mono.fromCallable(task).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static boolean isUniqueViolation(DataIntegrityViolationException e){
+        Throwable cause = e.getCause();
+        return cause instanceof R2dbcException && AccountService.UNIQUE_VIOLATION.equals(((R2dbcException) cause).getSqlState());
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import com.example.cache.AccountIdIndex;
+import com.example.dto.MessageCursor;
+import com.example.dto.MessagePage;
+import com.example.entity.Message;
+import com.example.exception.ForbiddenActionException;
+import com.example.exception.InvalidCursorException;
+import com.example.exception.InvalidSearchException;
+import com.example.exception.MessageCreationException;
+import com.example.id.EntityIdAllocator;
+import com.example.repository.ReactiveAccountRepository;
+import com.example.repository.ReactiveMessageRepository;
+import com.example.search.MessageSearchIndex;
+
+/**
+ * Non-blocking counterpart of MessageService used by the reactive profile. Messages are read and written through
+ * R2DBC with the same rules and errors as MessageService. Writes still patch the shared caches, the search index
+ * and the home feeds through MessageService once they have completed.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveMessageService {
+    private final ReactiveMessageRepository messageRepository;
+    private final ReactiveAccountRepository accountRepository;
+    private final EntityIdAllocator idAllocator;
+    private final AccountIdIndex accountIdIndex;
+    private final MessageSearchIndex searchIndex;
+    private final MessageService messageService;
+    private final int deleteChunkSize;
+
+    @Autowired
+    public ReactiveMessageService(ReactiveMessageRepository messageRepository, ReactiveAccountRepository accountRepository,
+                                  EntityIdAllocator idAllocator, AccountIdIndex accountIdIndex,
+                                  MessageSearchIndex searchIndex, MessageService messageService,
+                                  @Value("${app.delete.chunk-size}") int deleteChunkSize){
+        this.messageRepository = messageRepository;
+        this.accountRepository = accountRepository;
+        this.idAllocator = idAllocator;
+        this.accountIdIndex = accountIdIndex;
+        this.searchIndex = searchIndex;
+        this.messageService = messageService;
+        this.deleteChunkSize = deleteChunkSize;
+    }
+
+    /**
+     * This method handles the input validation and persistence of new messages.
+     * 
+     * @param message
+     * @return message that was persisted; fails with MessageCreationException
+     */
+    public Mono<Message> postMessage(Message message){
+        try{
+            MessageService.validateMessageText(message.getMessageText());
+        }
+        catch(MessageCreationException e){
+            return Mono.error(e);
+        }
+        return accountExists(message.getPostedBy())
+                .flatMap(exists -> exists
+                        ? savePostedMessage(message.getPostedBy(), message)
+                        : Mono.error(new MessageCreationException("Messages must be posted by verified users. The user posting the message does not exist.")));
+    }
+
+    /**
+     * This method handles the persistence of a new message for an account already authenticated by its
+     * session token, so the poster is not checked against the account table.
+     * 
+     * @param accountId authenticated poster
+     * @param message not containing an ID, postedBy may be omitted
+     * @return message that was persisted; fails with MessageCreationException or ForbiddenActionException
+     */
+    public Mono<Message> postMessageAs(long accountId, Message message){
+        if (message.getPostedBy() != null && message.getPostedBy() != accountId){
+            return Mono.error(new ForbiddenActionException("Messages can only be posted by the account that is logged in."));
+        }
+        try{
+            MessageService.validateMessageText(message.getMessageText());
+        }
+        catch(MessageCreationException e){
+            return Mono.error(e);
+        }
+        return savePostedMessage(accountId, message);
+    }
+
+    /**
+     * @return every message, in id order, emitted as rows arrive
+     */
+    public Flux<Message> getAllMessages(){
+        return messageRepository.streamAllMessages();
+    }
+
+    /**
+     * This method handles the retrieval of one page of messages, newest first, optionally restricted to a
+     * range of timePostedEpoch.
+     * @param limit requested page size, or null for the default
+     * @param after cursor returned with the previous page, or null for the first page
+     * @param since inclusive lower bound on timePostedEpoch, or null for none
+     * @param until exclusive upper bound on timePostedEpoch, or null for none
+     * @return page of messages and the cursor of the following page; fails with InvalidCursorException
+     */
+    public Mono<MessagePage> getMessagesPage(Integer limit, String after, Long since, Long until){
+        int pageSize;
+        try{
+            pageSize = MessageService.pageSize(limit);
+        }
+        catch(InvalidCursorException e){
+            return Mono.error(e);
+        }
+        return startCursor(after, until)
+                .flatMap(cursor -> messageRepository.findMessagesBefore(since == null ? Long.MIN_VALUE : since,
+                        cursor.getTimePostedEpoch(), cursor.getMessageId(), pageSize + 1).collectList()
+                        .flatMap(messages -> since == null ? withUndated(messages, pageSize + 1, cursor,
+                                messageRepository::findUndatedMessagesBefore) : Mono.just(messages)))
+                .map(messages -> MessageService.toPage(messages, pageSize));
+    }
+
+    /**
+     * @param messageId
+     * @return message matching the provided id, empty if there is none
+     */
+    public Mono<Message> getMessageById(Long messageId){
+        return messageRepository.findMessageByMessageId(messageId);
+    }
+
+    /**
+     * This method handles the deletion of a message given its id.
+     * @param messageId
+     * @return number of rows updated as a result of this call
+     */
+    public Mono<Integer> deleteMessageById(Long messageId){
+        return messageRepository.findPostedByByMessageId(messageId)
+                .flatMap(postedBy -> messageRepository.deleteMessageByMessageId(messageId)
+                        .doOnNext(rowsUpdated -> {
+                            if (rowsUpdated > 0){
+                                messageService.messagesDeleted(Map.of(messageId, postedBy));
+                            }
+                        }))
+                .defaultIfEmpty(0);
+    }
+
+    /**
+     * This method handles the deletion of many messages given their ids, one chunk per statement.
+     * @param messageIds
+     * @return number of rows updated as a result of this call
+     */
+    public Mono<Integer> deleteMessagesByIds(Collection<Long> messageIds){
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(messageIds));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += deleteChunkSize){
+            chunks.add(distinctIds.subList(from, Math.min(from + deleteChunkSize, distinctIds.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .concatMap(chunk -> deleteChunk(chunk, null))
+                .reduce(0, Integer::sum);
+    }
+
+    /**
+     * This method handles the deletion of every message posted by an account, selecting and deleting one chunk
+     * of ids at a time.
+     * @param accountId
+     * @return number of rows updated as a result of this call
+     */
+    public Mono<Integer> deleteMessagesByAccount(Long accountId){
+        return messageRepository.findMessageIdsByPostedBy(accountId, deleteChunkSize).collectList()
+                .flatMap(chunk -> chunk.isEmpty()
+                        ? Mono.just(0)
+                        : deleteChunk(chunk, accountId).flatMap(deleted -> deleteMessagesByAccount(accountId).map(rest -> deleted + rest)));
+    }
+
+    /**
+     * This method handles the updating of a message given its id and new message text.
+     * @param messageId
+     * @param message
+     * @return number of rows updated; fails with MessageCreationException
+     */
+    public Mono<Integer> updateMessageById(Long messageId, Message message){
+        try{
+            MessageService.validateMessageText(message.getMessageText());
+        }
+        catch(MessageCreationException e){
+            return Mono.error(e);
+        }
+        return messageRepository.findPostedByByMessageId(messageId)
+                .flatMap(postedBy -> messageRepository.updateMessageText(messageId, message.getMessageText())
+                        .doOnNext(rowsUpdated -> {
+                            if (rowsUpdated > 0){
+                                messageService.messageUpdated(messageId, postedBy, message.getMessageText());
+                            }
+                        }))
+                .defaultIfEmpty(0);
+    }
+
+    /**
+     * This method handles the updating of a message on behalf of an authenticated account. Only a message
+     * posted by that account is updated.
+     * @param accountId authenticated poster
+     * @param messageId
+     * @param message
+     * @return number of rows updated, zero if the message does not exist or was posted by another account; fails
+     * with MessageCreationException
+     */
+    public Mono<Integer> updateMessageByIdAs(long accountId, Long messageId, Message message){
+        try{
+            MessageService.validateMessageText(message.getMessageText());
+        }
+        catch(MessageCreationException e){
+            return Mono.error(e);
+        }
+        return messageRepository.updateMessageTextByPoster(messageId, accountId, message.getMessageText())
+                .doOnNext(rowsUpdated -> {
+                    if (rowsUpdated > 0){
+                        messageService.messageUpdated(messageId, accountId, message.getMessageText());
+                    }
+                });
+    }
+
+    /**
+     * @param accountId
+     * @return messages written by specified account, in id order
+     */
+    public Flux<Message> getAllMessagesByAccount(Long accountId){
+        return messageRepository.findMessagesByPostedBy(accountId);
+    }
+
+    /**
+     * This method handles the retrieval of one page of messages written by a particular user, newest first,
+     * optionally restricted to a range of timePostedEpoch.
+     * @param accountId
+     * @param limit requested page size, or null for the default
+     * @param after cursor returned with the previous page, or null for the first page
+     * @param since inclusive lower bound on timePostedEpoch, or null for none
+     * @param until exclusive upper bound on timePostedEpoch, or null for none
+     * @return page of messages and the cursor of the following page; fails with InvalidCursorException
+     */
+    public Mono<MessagePage> getMessagesPageByAccount(Long accountId, Integer limit, String after, Long since, Long until){
+        int pageSize;
+        try{
+            pageSize = MessageService.pageSize(limit);
+        }
+        catch(InvalidCursorException e){
+            return Mono.error(e);
+        }
+        return startCursor(after, until)
+                .flatMap(cursor -> messageRepository.findMessagesByPostedByBefore(accountId, since == null ? Long.MIN_VALUE : since,
+                        cursor.getTimePostedEpoch(), cursor.getMessageId(), pageSize + 1).collectList()
+                        .flatMap(messages -> since == null ? withUndated(messages, pageSize + 1, cursor, (messageId, count) ->
+                                messageRepository.findUndatedMessagesByPostedByBefore(accountId, messageId, count)) : Mono.just(messages)))
+                .map(messages -> MessageService.toPage(messages, pageSize));
+    }
+
+    /**
+     * This method handles the search of messages by the words of their text using the in-memory search index.
+     * @param query
+     * @param limit requested number of results, or null for the default
+     * @return matching messages, newest id first; fails with InvalidSearchException
+     */
+    public Mono<List<Message>> searchMessages(String query, Integer limit){
+        if (!MessageSearchIndex.hasTerms(query)){
+            return Mono.error(new InvalidSearchException("Search query must contain at least one word."));
+        }
+        if (!MessageService.isValidLimit(limit)){
+            return Mono.error(new InvalidSearchException(MessageService.INVALID_LIMIT_MESSAGE));
+        }
+        List<Long> messageIds = searchIndex.search(query, MessageService.resultLimit(limit));
+        if (messageIds.isEmpty()){
+            return Mono.just(List.of());
+        }
+        return messageRepository.findMessagesByMessageIdIn(messageIds).collectList()
+                .map(loaded -> MessageService.inIdOrder(messageIds, loaded));
+    }
+
+    private static Mono<MessageCursor> startCursor(String after, Long until){
+        try{
+            MessageCursor cursor = after == null ? MessageCursor.START : MessageCursor.decode(after);
+            return Mono.just(until == null ? cursor : cursor.before(until));
+        }
+        catch(InvalidCursorException e){
+            return Mono.error(e);
+        }
+    }
+
+    /**
+     * Reactive counterpart of MessageService.withUndated: messages without a timePostedEpoch are only read once the
+     * dated ones no longer fill the page.
+     */
+    private static Mono<List<Message>> withUndated(List<Message> dated, int count, MessageCursor cursor,
+                                                   BiFunction<Long, Integer, Flux<Message>> undatedBefore){
+        if (dated.size() >= count){
+            return Mono.just(dated);
+        }
+        return undatedBefore.apply(cursor.undatedMessageIdBound(), count - dated.size())
+                .collectList()
+                .map(undated -> {
+                    if (undated.isEmpty()){
+                        return dated;
+                    }
+                    List<Message> messages = new ArrayList<>(dated.size() + undated.size());
+                    messages.addAll(dated);
+                    messages.addAll(undated);
+                    return messages;
+                });
+    }
+
+    /**
+     * Posters already in the account id index are accepted without a query.
+     */
+    private Mono<Boolean> accountExists(Long accountId){
+        if (accountId == null){
+            return Mono.just(false);
+        }
+        if (accountIdIndex.contains(accountId)){
+            return Mono.just(true);
+        }
+        return accountRepository.existsByAccountId(accountId)
+                .doOnNext(exists -> {
+                    if (exists){
+                        accountIdIndex.add(accountId);
+                    }
+                });
+    }
+
+    /**
+     * Ids come from the Hibernate generator shared with MessageService. It only reaches the database once per
+     * block of ids, but it does so over JDBC, so it is called off the event loop.
+     */
+    private Mono<Message> savePostedMessage(Long postedBy, Message message){
+        return Mono.fromCallable(() -> idAllocator.nextId(Message.class))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(messageId -> new Message(messageId, postedBy, message.getMessageText(), message.getTimePostedEpoch()))
+                .flatMap(postedMessage -> messageRepository.insertMessage(postedMessage.getMessageId(), postedMessage.getPostedBy(),
+                                postedMessage.getMessageText(), postedMessage.getTimePostedEpoch())
+                        .thenReturn(postedMessage))
+                .doOnNext(postedMessage -> messageService.messagesPosted(List.of(postedMessage)));
+    }
+
+    /**
+     * @param postedBy poster of every message of the chunk, or null to read the posters before deleting
+     */
+    private Mono<Integer> deleteChunk(List<Long> messageIds, Long postedBy){
+        Mono<Map<Long, Long>> posters = postedBy == null
+                ? messageRepository.findMessagesByMessageIdIn(messageIds).collectMap(Message::getMessageId, Message::getPostedBy)
+                : Mono.just(messageIds.stream().collect(Collectors.toMap(messageId -> messageId, messageId -> postedBy)));
+        return posters.flatMap(postersById -> postersById.isEmpty()
+                ? Mono.just(0)
+                : messageRepository.deleteMessagesByMessageIdIn(postersById.keySet())
+                        .doOnNext(rowsUpdated -> {
+                            if (rowsUpdated > 0){
+                                messageService.messagesDeleted(postersById);
+                            }
+                        }));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.session;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * WebFlux counterpart of SessionFilter: resolves "Authorization: Bearer ..." to the caller's account id and
+ * exposes it as the SessionFilter.ACCOUNT_ID exchange attribute, answering unknown or expired tokens with 401.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveSessionFilter implements WebFilter {
+    private static final String BEARER = "Bearer ";
+
+    private final SessionStore sessionStore;
+
+    @Autowired
+    public ReactiveSessionFilter(SessionStore sessionStore){
+        this.sessionStore = sessionStore;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain){
+        String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())){
+            return chain.filter(exchange);
+        }
+        String token = authorization.substring(BEARER.length()).trim();
+        Long accountId = sessionStore.resolve(token);
+        if (accountId == null){
+            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+            DataBuffer body = exchange.getResponse().bufferFactory()
+                    .wrap("Session token is invalid or has expired.".getBytes(StandardCharsets.UTF_8));
+            return exchange.getResponse().writeWith(Mono.just(body));
+        }
+        exchange.getAttributes().put(SessionFilter.ACCOUNT_ID, accountId);
+        exchange.getAttributes().put(SessionFilter.TOKEN, token);
+        return chain.filter(exchange);
+    }
+}
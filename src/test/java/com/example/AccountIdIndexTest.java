@@ -0,0 +1,91 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.cache.AccountIdIndex;
+import com.example.entity.Account;
+import com.example.util.ConcurrentLongHashSet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class AccountIdIndexTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    /**
+     * The seeded accounts are loaded at startup and a registered account is added straight away.
+     */
+    @Test
+    public void indexFollowsAccountTable() throws IOException, InterruptedException {
+        AccountIdIndex index = app.getBean(AccountIdIndex.class);
+        Assertions.assertEquals(4, index.size());
+        Assertions.assertTrue(index.contains(9999L));
+        Assertions.assertFalse(index.contains(5050L));
+
+        HttpRequest registerRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"user\",\"password\":\"password\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        Account account = objectMapper.readValue(webClient.send(registerRequest, HttpResponse.BodyHandlers.ofString()).body(), Account.class);
+        Assertions.assertTrue(index.contains(account.getAccountId()));
+    }
+
+    /**
+     * Values added concurrently from many threads, including ones that force segments to grow, are all found.
+     */
+    @Test
+    public void concurrentAddsAreVisible() {
+        ConcurrentLongHashSet set = new ConcurrentLongHashSet(16, 4);
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int t = 0; t < 8; t++){
+            long base = t * 100000L;
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (long value = base; value < base + 20000; value++){
+                    set.add(value);
+                }
+            }));
+        }
+        writers.forEach(CompletableFuture::join);
+        Assertions.assertEquals(160000, set.size());
+        for (int t = 0; t < 8; t++){
+            Assertions.assertTrue(set.contains(t * 100000L));
+            Assertions.assertTrue(set.contains(t * 100000L + 19999));
+            Assertions.assertFalse(set.contains(t * 100000L + 20000));
+        }
+    }
+}
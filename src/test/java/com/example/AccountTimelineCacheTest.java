@@ -0,0 +1,127 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.cache.AccountTimelineCache;
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class AccountTimelineCacheTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    /**
+     * Reading an account's messages, then posting, updating and deleting through the API, must never serve a
+     * stale cached list.
+     */
+    @Test
+    public void cachedTimelineFollowsWrites() throws IOException, InterruptedException {
+        Assertions.assertEquals(1, getMessagesForUser().size());
+
+        String json = "{\"postedBy\":9999,\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947793}";
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> postResponse = webClient.send(postRequest, HttpResponse.BodyHandlers.ofString());
+        Message posted = objectMapper.readValue(postResponse.body(), Message.class);
+        List<Message> expectedResult = new ArrayList<Message>();
+        expectedResult.add(new Message(9999L, 9999L, "test message 1", 1669947792L));
+        expectedResult.add(posted);
+        Assertions.assertEquals(expectedResult, getMessagesForUser());
+
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"text changed\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+        expectedResult.set(0, new Message(9999L, 9999L, "text changed", 1669947792L));
+        Assertions.assertEquals(expectedResult, getMessagesForUser());
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .DELETE()
+                .build();
+        webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        expectedResult.remove(0);
+        Assertions.assertEquals(expectedResult, getMessagesForUser());
+
+        AccountTimelineCache cache = app.getBean(AccountTimelineCache.class);
+        Assertions.assertEquals(1, cache.stats().missCount(), "Expected the list to be loaded once");
+        Assertions.assertEquals(3, cache.stats().hitCount(), "Expected every later read to be a cache hit");
+    }
+
+    /**
+     * A write committed while an account's list is still being loaded must not leave the list that load read,
+     * from before the write, in the cache.
+     */
+    @Test
+    public void writeDuringLoadDropsLoadedList() throws InterruptedException {
+        AccountTimelineCache cache = app.getBean(AccountTimelineCache.class);
+        Message before = new Message(1L, 42L, "before edit", 1669947792L);
+        Message after = new Message(1L, 42L, "after edit", 1669947792L);
+        CountDownLatch loading = new CountDownLatch(1);
+        Thread reader = new Thread(() -> cache.get(42L, accountId -> {
+            loading.countDown();
+            try{
+                Thread.sleep(300);
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            return List.of(before);
+        }));
+        reader.start();
+        loading.await();
+        cache.messageUpdated(42L, 1L, "after edit");
+        reader.join();
+        Assertions.assertEquals(List.of(after), cache.get(42L, accountId -> List.of(after)));
+    }
+
+    private List<Message> getMessagesForUser() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9999/messages"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+    }
+}
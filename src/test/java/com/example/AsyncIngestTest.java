@@ -0,0 +1,158 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.cache.PendingMessageOverlay;
+import com.example.entity.Message;
+import com.example.repository.MessageRepository;
+import com.example.service.MessageIngestService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class AsyncIngestTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app with write-behind ingestion enabled, and create a
+     * new webClient and ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {"--app.ingest.async=true"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private HttpRequest postRequest(String text){
+        return HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"postedBy\":9999, \"messageText\": \"" + text + "\", \"timePostedEpoch\": 1669947800}"))
+                .header("Content-Type", "application/json")
+                .build();
+    }
+
+    private void awaitWritten(long count) throws InterruptedException {
+        MessageIngestService ingestService = app.getBean(MessageIngestService.class);
+        for (int attempt = 0; attempt < 100 && ingestService.getWrittenCount() < count; attempt++){
+            Thread.sleep(50);
+        }
+        Assertions.assertEquals(count, ingestService.getWrittenCount());
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/messages with ingestion enabled
+     * 
+     * Expected Response:
+     *  Status Code: 202
+     *  Response Body: the message with its id, readable by its author straight away and persisted shortly after
+     */
+    @Test
+    public void postMessageAccepted() throws IOException, InterruptedException {
+        HttpResponse<String> response = webClient.send(postRequest("queued"), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(202, response.statusCode());
+        Message accepted = objectMapper.readValue(response.body(), Message.class);
+        Assertions.assertNotNull(accepted.getMessageId());
+        Assertions.assertEquals("/messages/" + accepted.getMessageId(), response.headers().firstValue("Location").orElseThrow());
+
+        HttpRequest accountRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9999/messages"))
+                .build();
+        List<Message> messages = objectMapper.readValue(webClient.send(accountRequest, HttpResponse.BodyHandlers.ofString()).body(),
+                new TypeReference<List<Message>>(){});
+        Assertions.assertTrue(messages.contains(accepted));
+
+        awaitWritten(1);
+        Assertions.assertEquals(accepted, app.getBean(MessageRepository.class).findById(accepted.getMessageId()).orElseThrow());
+    }
+
+    /**
+     * Sending PATCH and DELETE requests for a message that is accepted but not yet written, then again once it is
+     * 
+     * Expected Response:
+     *  Status Code: 409 with Retry-After for every write while the message is pending, then 200
+     */
+    @Test
+    public void writesToPendingMessageRefused() throws IOException, InterruptedException {
+        PendingMessageOverlay overlay = app.getBean(PendingMessageOverlay.class);
+        Message pending = new Message(9999L, 9999L, "test message 1", 1669947792L);
+        overlay.add(pending);
+
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"changed\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> patchResponse = webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(409, patchResponse.statusCode());
+        Assertions.assertTrue(patchResponse.headers().firstValue("Retry-After").isPresent());
+        for (String path : List.of("/messages/9999", "/messages?ids=9997,9999", "/accounts/9999/messages")){
+            HttpRequest deleteRequest = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080" + path))
+                    .DELETE()
+                    .build();
+            Assertions.assertEquals(409, webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString()).statusCode(), path);
+        }
+        Assertions.assertTrue(app.getBean(MessageRepository.class).existsById(9997L), "Expected nothing to be deleted");
+
+        overlay.removeAll(List.of(pending));
+        HttpResponse<String> retried = webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, retried.statusCode());
+        Assertions.assertEquals("1", retried.body());
+    }
+
+    /**
+     * Invalid messages are still refused synchronously.
+     * 
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void invalidMessageRefused() throws IOException, InterruptedException {
+        Assertions.assertEquals(400, webClient.send(postRequest(""), HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    /**
+     * Messages posted concurrently are all written, sharing commits.
+     * 
+     * Expected Response:
+     *  Status Code: 202 for every message
+     */
+    @Test
+    public void concurrentPostsAllWritten() throws InterruptedException {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 200; i++){
+            responses.add(webClient.sendAsync(postRequest("message " + i), HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses){
+            Assertions.assertEquals(202, response.join().statusCode());
+        }
+        awaitWritten(200);
+        Assertions.assertEquals(203, app.getBean(MessageRepository.class).count());
+        Assertions.assertTrue(app.getBean(MessageIngestService.class).getBatchCount() <= 200);
+    }
+}
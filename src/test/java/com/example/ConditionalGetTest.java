@@ -0,0 +1,143 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+public class ConditionalGetTest {
+    ApplicationContext app;
+    HttpClient webClient;
+
+    /**
+     * Before every test, reset the database, restart the app in query count debug mode, and create a new
+     * webClient for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        app = SpringApplication.run(SocialMediaApp.class, QueryBudget.ARGS);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private HttpResponse<String> get(String path, String ifNoneMatch) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path));
+        if (ifNoneMatch != null){
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return webClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String etagOf(HttpResponse<String> response){
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return response.headers().firstValue("ETag").orElseThrow(() -> new AssertionError("Expected an ETag header"));
+    }
+
+    private static void assertNotModified(HttpResponse<String> response, String etag){
+        Assertions.assertEquals(304, response.statusCode(), "Expected Status Code 304 - Actual Code was: " + response.statusCode());
+        Assertions.assertEquals(etag, response.headers().firstValue("ETag").orElse(null));
+        Assertions.assertTrue(response.body().isEmpty(), "Expected Empty Result, but Result was not Empty");
+        QueryBudget.assertWithin(0, response);
+    }
+
+    /**
+     * Sending GET localhost:8080/messages with the ETag of the previous response, before and after posting
+     *
+     * Expected Response:
+     *  Status Code: 304 without running a query while nothing changed, then 200 with a new ETag
+     */
+    @Test
+    public void allMessagesNotModifiedUntilPost() throws IOException, InterruptedException {
+        String etag = etagOf(get("/messages", null));
+        assertNotModified(get("/messages", etag), etag);
+        assertNotModified(get("/messages?limit=2", etag), etag);
+
+        send("POST", "/messages", "{\"postedBy\":9999, \"messageText\": \"hello message\", \"timePostedEpoch\": 1669947800}");
+        HttpResponse<String> response = get("/messages", etag);
+        Assertions.assertNotEquals(etag, etagOf(response));
+        Assertions.assertTrue(response.body().contains("hello message"), "Expected the new message in " + response.body());
+    }
+
+    /**
+     * Sending GET localhost:8080/messages/9997 with the ETag of the previous response, before and after updating it
+     *
+     * Expected Response:
+     *  Status Code: 304 until the message is updated, then 200 with the new text; weak and listed tags match too
+     */
+    @Test
+    public void messageNotModifiedUntilUpdate() throws IOException, InterruptedException {
+        String etag = etagOf(get("/messages/9997", null));
+        assertNotModified(get("/messages/9997", etag), etag);
+        assertNotModified(get("/messages/9997", "\"stale\", W/" + etag), etag);
+
+        send("PATCH", "/messages/9997", "{\"messageText\": \"updated message\"}");
+        HttpResponse<String> response = get("/messages/9997", etag);
+        Assertions.assertNotEquals(etag, etagOf(response));
+        Assertions.assertTrue(response.body().contains("updated message"), "Expected the updated text in " + response.body());
+    }
+
+    /**
+     * Sending GET localhost:8080/accounts/9999/messages with the ETag of the previous response while other
+     * accounts post, then after one of its messages is deleted by id
+     *
+     * Expected Response:
+     *  Status Code: 304 while only other accounts change, then 200 without the deleted message
+     */
+    @Test
+    public void accountMessagesNotModifiedUntilOwnChange() throws IOException, InterruptedException {
+        String etag = etagOf(get("/accounts/9999/messages", null));
+        send("POST", "/messages", "{\"postedBy\":9998, \"messageText\": \"other account\", \"timePostedEpoch\": 1669947800}");
+        assertNotModified(get("/accounts/9999/messages", etag), etag);
+
+        send("DELETE", "/messages/9999", null);
+        HttpResponse<String> response = get("/accounts/9999/messages", etag);
+        Assertions.assertNotEquals(etag, etagOf(response));
+        Assertions.assertEquals("[]", response.body());
+    }
+
+    /**
+     * Posting with write-behind ingestion enabled, then sending GET localhost:8080/accounts/9999/messages with the
+     * ETag from before the post
+     *
+     * Expected Response:
+     *  Status Code: 200 including the accepted message, even before it is written
+     */
+    @Test
+    public void pendingMessageChangesTag() throws IOException, InterruptedException {
+        SpringApplication.exit(app);
+        app = SpringApplication.run(SocialMediaApp.class, "--app.ingest.async=true");
+        Thread.sleep(500);
+        String etag = etagOf(get("/accounts/9999/messages", null));
+
+        HttpResponse<String> posted = send("POST", "/messages", "{\"postedBy\":9999, \"messageText\": \"queued message\", \"timePostedEpoch\": 1669947800}");
+        Assertions.assertEquals(202, posted.statusCode(), "Expected Status Code 202 - Actual Code was: " + posted.statusCode());
+        HttpResponse<String> response = get("/accounts/9999/messages", etag);
+        Assertions.assertNotEquals(etag, etagOf(response));
+        Assertions.assertTrue(response.body().contains("queued message"), "Expected the queued message in " + response.body());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class CreateMessageBatchTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/messages/batch with a mix of valid and invalid messages
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: one result per message, valid ones persisted and invalid ones rejected individually
+     */
+    @Test
+    public void createMessageBatchMixedResults() throws IOException, InterruptedException {
+        String json = "["
+                + "{\"postedBy\":9999,\"messageText\": \"first\",\"timePostedEpoch\": 1669947793},"
+                + "{\"postedBy\":9999,\"messageText\": \"\",\"timePostedEpoch\": 1669947793},"
+                + "{\"postedBy\":5050,\"messageText\": \"unknown user\",\"timePostedEpoch\": 1669947793},"
+                + "{\"postedBy\":9998,\"messageText\": \"second\",\"timePostedEpoch\": 1669947794}"
+                + "]";
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postRequest, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        JsonNode results = objectMapper.readTree(response.body());
+        Assertions.assertEquals(4, results.size());
+        int[] expectedStatuses = {200, 400, 400, 200};
+        for (int i = 0; i < expectedStatuses.length; i++){
+            Assertions.assertEquals(i, results.get(i).get("index").asInt());
+            Assertions.assertEquals(expectedStatuses[i], results.get(i).get("status").asInt(), "Unexpected status for item " + i);
+        }
+        Assertions.assertEquals("second", results.get(3).get("message").get("messageText").asText());
+
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .build();
+        List<Message> allMessages = objectMapper.readValue(webClient.send(getRequest, HttpResponse.BodyHandlers.ofString()).body(),
+                new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(5, allMessages.size(), "Expected the two valid messages to be persisted");
+    }
+}
@@ -61,7 +61,7 @@ public class CreateMessageTest {
         int status = response.statusCode();
         Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
         ObjectMapper om = new ObjectMapper();
-        Message expectedResult = new Message(1, 9999, "hello message", Long.valueOf(1669947792));
+        Message expectedResult = new Message(1L, 9999L, "hello message", Long.valueOf(1669947792));
         Message actualResult = om.readValue(response.body().toString(), Message.class);
         Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
     }
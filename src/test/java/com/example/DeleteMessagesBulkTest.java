@@ -0,0 +1,123 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class DeleteMessagesBulkTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app with a small delete chunk size so that chunking is
+     * exercised, and create a new webClient and ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {"--app.delete.chunk-size=2"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to DELETE localhost:8080/messages?ids=9996,9997,5050 (5050 does not exist)
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: 2 (two rows deleted), and only message 9999 remains
+     */
+    @Test
+    public void deleteMessagesByIds() throws IOException, InterruptedException {
+        HttpResponse<String> response = delete("http://localhost:8080/messages?ids=9996,9997,5050");
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        Assertions.assertEquals("2", response.body());
+
+        List<Message> expectedResult = new ArrayList<Message>();
+        expectedResult.add(new Message(9999L, 9999L, "test message 1", 1669947792L));
+        Assertions.assertEquals(expectedResult, get("http://localhost:8080/messages"));
+    }
+
+    /**
+     * Sending an http request to DELETE localhost:8080/messages?ids=5050 (message does not exist)
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: empty
+     */
+    @Test
+    public void deleteMessagesByIdsNothingDeleted() throws IOException, InterruptedException {
+        HttpResponse<String> response = delete("http://localhost:8080/messages?ids=5050");
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        Assertions.assertEquals("", response.body());
+    }
+
+    /**
+     * Sending an http request to DELETE localhost:8080/accounts/9998/messages after the account posted more
+     * messages than fit in one chunk
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: 5 (every message of the account), other accounts untouched
+     */
+    @Test
+    public void deleteMessagesByAccount() throws IOException, InterruptedException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 5; i++){
+            json.append(i == 0 ? "" : ",").append("{\"postedBy\":9998,\"messageText\": \"message ").append(i).append("\",\"timePostedEpoch\": 1669947793}");
+        }
+        json.append("]");
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(json.toString()))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(postRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(5, get("http://localhost:8080/accounts/9998/messages").size());
+
+        HttpResponse<String> response = delete("http://localhost:8080/accounts/9998/messages");
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        Assertions.assertEquals("5", response.body());
+        Assertions.assertTrue(get("http://localhost:8080/accounts/9998/messages").isEmpty(), "Expected Empty Result, but Result was not Empty");
+        Assertions.assertEquals(3, get("http://localhost:8080/messages").size());
+    }
+
+    private HttpResponse<String> delete(String uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .DELETE()
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private List<Message> get(String uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .build();
+        return objectMapper.readValue(webClient.send(request, HttpResponse.BodyHandlers.ofString()).body(), new TypeReference<List<Message>>(){});
+    }
+}
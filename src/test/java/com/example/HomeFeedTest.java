@@ -0,0 +1,236 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.cache.HomeTimeline;
+import com.example.cache.HomeTimelineCache;
+import com.example.dto.MessageCursor;
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class HomeFeedTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private int send(String method, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode();
+    }
+
+    private HttpResponse<String> getFeed(String query) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9999/feed" + query))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        return response;
+    }
+
+    private List<Message> feed() throws IOException, InterruptedException {
+        return objectMapper.readValue(getFeed("").body(), new TypeReference<List<Message>>(){});
+    }
+
+    private Message postMessage(long postedBy, long time) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"postedBy\":" + postedBy + ", \"messageText\": \"feed\", \"timePostedEpoch\": " + time + "}"))
+                .header("Content-Type", "application/json")
+                .build();
+        return objectMapper.readValue(webClient.send(request, HttpResponse.BodyHandlers.ofString()).body(), Message.class);
+    }
+
+    /**
+     * Messages of followed accounts reach the feed, newest first, including ones pushed after the feed was built.
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the followed accounts' messages, newest first, split over pages with limit
+     */
+    @Test
+    public void feedShowsFollowedAccounts() throws IOException, InterruptedException {
+        Assertions.assertEquals(200, send("PUT", "/accounts/9999/following/9998"));
+        Assertions.assertEquals(200, send("PUT", "/accounts/9999/following/9997"));
+        Message seeded = new Message(9997L, 9997L, "test message 2", 1669947792L);
+        Assertions.assertEquals(List.of(seeded), feed());
+
+        Message posted = postMessage(9998L, 1669947800L);
+        List<Message> feed = feed();
+        for (int attempt = 0; attempt < 50 && feed.size() < 2; attempt++){
+            Thread.sleep(100);
+            feed = feed();
+        }
+        Assertions.assertEquals(List.of(posted, seeded), feed);
+
+        HttpResponse<String> firstPage = getFeed("?limit=1");
+        Assertions.assertEquals(List.of(posted), objectMapper.readValue(firstPage.body(), new TypeReference<List<Message>>(){}));
+        String cursor = firstPage.headers().firstValue("X-Next-Cursor").orElseThrow();
+        Assertions.assertEquals(List.of(seeded), objectMapper.readValue(getFeed("?limit=1&after=" + cursor).body(), new TypeReference<List<Message>>(){}));
+
+        Assertions.assertEquals(200, send("DELETE", "/accounts/9999/following/9997"));
+        Assertions.assertEquals(List.of(posted), feed());
+    }
+
+    /**
+     * A message posted without a timePostedEpoch reaches a feed that is already cached, after every dated message,
+     * and does not stop the messages posted with it from reaching the feed.
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the dated message of the batch, the older seeded message, then the undated message
+     */
+    @Test
+    public void feedSurvivesUndatedMessage() throws IOException, InterruptedException {
+        Assertions.assertEquals(200, send("PUT", "/accounts/9999/following/9997"));
+        Message seeded = new Message(9997L, 9997L, "test message 2", 1669947792L);
+        Assertions.assertEquals(List.of(seeded), feed());
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString("["
+                        + "{\"postedBy\":9997, \"messageText\": \"undated\"},"
+                        + "{\"postedBy\":9997, \"messageText\": \"dated\", \"timePostedEpoch\": 1669947800}]"))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(200, webClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        List<Message> feed = feed();
+        for (int attempt = 0; attempt < 50 && feed.size() < 3; attempt++){
+            Thread.sleep(100);
+            feed = feed();
+        }
+        Assertions.assertEquals(3, feed.size());
+        Assertions.assertEquals("dated", feed.get(0).getMessageText());
+        Assertions.assertEquals(seeded, feed.get(1));
+        Assertions.assertEquals("undated", feed.get(2).getMessageText());
+    }
+
+    /**
+     * Messages of accounts above the follower threshold are merged in when the feed is read.
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the celebrity's new message straight away, ahead of older pushed messages
+     */
+    @Test
+    public void feedMergesCelebrityAccounts() throws IOException, InterruptedException {
+        SpringApplication.exit(app);
+        app = SpringApplication.run(SocialMediaApp.class, "--app.feed.celebrity-follower-threshold=2");
+        Thread.sleep(500);
+
+        Assertions.assertEquals(200, send("PUT", "/accounts/9998/following/9996"));
+        Assertions.assertEquals(200, send("PUT", "/accounts/9999/following/9996"));
+        Assertions.assertEquals(200, send("PUT", "/accounts/9999/following/9997"));
+        Message regular = new Message(9997L, 9997L, "test message 2", 1669947792L);
+        Message celebrity = new Message(9996L, 9996L, "test message 3", 1669947792L);
+        Assertions.assertEquals(List.of(regular, celebrity), feed());
+
+        Message posted = postMessage(9996L, 1669947800L);
+        Assertions.assertEquals(List.of(posted, regular, celebrity), feed());
+    }
+
+    /**
+     * An author followed as a regular account that crosses the follower threshold later still reaches feeds that
+     * were built and cached before.
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the new message of the author, ahead of its seeded message
+     */
+    @Test
+    public void feedFollowsAuthorAcrossThreshold() throws IOException, InterruptedException {
+        SpringApplication.exit(app);
+        app = SpringApplication.run(SocialMediaApp.class, "--app.feed.celebrity-follower-threshold=2");
+        Thread.sleep(500);
+
+        Assertions.assertEquals(200, send("PUT", "/accounts/9999/following/9996"));
+        Message seeded = new Message(9996L, 9996L, "test message 3", 1669947792L);
+        Assertions.assertEquals(List.of(seeded), feed());
+
+        Assertions.assertEquals(200, send("PUT", "/accounts/9998/following/9996"));
+        Message posted = postMessage(9996L, 1669947800L);
+        List<Message> feed = feed();
+        for (int attempt = 0; attempt < 50 && feed.size() < 2; attempt++){
+            Thread.sleep(100);
+            feed = feed();
+        }
+        Assertions.assertEquals(List.of(posted, seeded), feed);
+    }
+
+    /**
+     * A message fanned out while a follower's timeline is still being built must not leave the timeline that
+     * build read, from before the message, in the cache.
+     */
+    @Test
+    public void postDuringBuildDropsBuiltTimeline() throws InterruptedException {
+        HomeTimelineCache cache = app.getBean(HomeTimelineCache.class);
+        Message posted = new Message(1L, 42L, "posted", 1669947800L);
+        CountDownLatch building = new CountDownLatch(1);
+        Thread reader = new Thread(() -> cache.get(7L, accountId -> {
+            building.countDown();
+            try{
+                Thread.sleep(300);
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            return new HomeTimeline(10, Set.of(42L), Set.of(), List.of());
+        }));
+        reader.start();
+        building.await();
+        cache.messagePosted(posted, List.of(7L));
+        reader.join();
+        HomeTimeline timeline = cache.get(7L, accountId -> new HomeTimeline(10, Set.of(42L), Set.of(), List.of(posted)));
+        Assertions.assertEquals(List.of(1L), timeline.idsAfter(MessageCursor.START, 10));
+    }
+
+    /**
+     * Sending an http request to PUT localhost:8080/accounts/9999/following/9999
+     * 
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void followSelfRejected() throws IOException, InterruptedException {
+        Assertions.assertEquals(400, send("PUT", "/accounts/9999/following/9999"));
+        Assertions.assertEquals(400, send("PUT", "/accounts/9999/following/1234"));
+    }
+}
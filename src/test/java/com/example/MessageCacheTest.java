@@ -0,0 +1,124 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.cache.MessageCache;
+import com.example.entity.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MessageCacheTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    /**
+     * A burst of concurrent GET localhost:8080/messages/5050 requests for an id that does not exist
+     *
+     * Expected Response:
+     *  Status Code: 200 with an empty body for every request, and a single load from the database
+     */
+    @Test
+    public void concurrentMissesLoadOnce() {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/5050"))
+                .build();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 20; i++){
+            responses.add(webClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> future : responses){
+            HttpResponse<String> response = future.join();
+            Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+            Assertions.assertTrue(response.body().isEmpty(), "Expected Empty Result, but Result was not Empty");
+        }
+        MessageCache cache = app.getBean(MessageCache.class);
+        Assertions.assertEquals(1, cache.stats().loadCount(), "Expected a single database load for the missing id");
+    }
+
+    /**
+     * Sending GET localhost:8080/messages/1 before the message exists, then posting it and reading it again
+     *
+     * Expected Response:
+     *  The negative entry is replaced by the posted message
+     */
+    @Test
+    public void postReplacesNegativeEntry() throws IOException, InterruptedException {
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/1"))
+                .build();
+        HttpResponse<String> missing = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertTrue(missing.body().isEmpty(), "Expected Empty Result, but Result was not Empty");
+
+        String json = "{\"postedBy\":9999,\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        Message posted = objectMapper.readValue(webClient.send(postRequest, HttpResponse.BodyHandlers.ofString()).body(), Message.class);
+        Assertions.assertEquals(1L, posted.getMessageId());
+
+        HttpResponse<String> found = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(posted, objectMapper.readValue(found.body(), Message.class));
+    }
+
+    /**
+     * Sending GET localhost:8080/messages/9999, then PATCH with new text, then GET again
+     *
+     * Expected Response:
+     *  The second read returns the updated text rather than the cached copy
+     */
+    @Test
+    public void updateEvictsCachedMessage() throws IOException, InterruptedException {
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .build();
+        Message before = objectMapper.readValue(webClient.send(getRequest, HttpResponse.BodyHandlers.ofString()).body(), Message.class);
+        Assertions.assertEquals("test message 1", before.getMessageText());
+
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"text changed\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> patchResponse = webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals("1", patchResponse.body());
+
+        Message after = objectMapper.readValue(webClient.send(getRequest, HttpResponse.BodyHandlers.ofString()).body(), Message.class);
+        Assertions.assertEquals(new Message(9999L, 9999L, "text changed", 1669947792L), after);
+    }
+}
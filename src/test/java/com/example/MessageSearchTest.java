@@ -0,0 +1,149 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.example.util.PostingList;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MessageSearchTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private HttpResponse<String> search(String query) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/search?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8)))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private List<Message> searchMessages(String query) throws IOException, InterruptedException {
+        HttpResponse<String> response = search(query);
+        Assertions.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+    }
+
+    /**
+     * The seeded messages are indexed at startup and matched by every word of the query, or by prefix.
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: matching messages, newest id first
+     */
+    @Test
+    public void searchSeededMessages() throws IOException, InterruptedException {
+        List<Message> expectedResult = List.of(
+                new Message(9999L, 9999L, "test message 1", 1669947792L),
+                new Message(9997L, 9997L, "test message 2", 1669947792L),
+                new Message(9996L, 9996L, "test message 3", 1669947792L));
+        Assertions.assertEquals(expectedResult, searchMessages("MESSAGE"));
+        Assertions.assertEquals(expectedResult, searchMessages("mess*"));
+        Assertions.assertEquals(List.of(expectedResult.get(1)), searchMessages("test 2"));
+        Assertions.assertEquals(List.of(), searchMessages("mess"));
+    }
+
+    /**
+     * Posting, updating and deleting a message is reflected in search results straight away.
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the message while its text matches, nothing once it is changed or deleted
+     */
+    @Test
+    public void searchFollowsWrites() throws IOException, InterruptedException {
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"postedBy\":9999, \"messageText\": \"Hello, brave new world!\", \"timePostedEpoch\": 1669947792}"))
+                .header("Content-Type", "application/json")
+                .build();
+        Message posted = objectMapper.readValue(webClient.send(postRequest, HttpResponse.BodyHandlers.ofString()).body(), Message.class);
+        Assertions.assertEquals(List.of(posted), searchMessages("world hello"));
+
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + posted.getMessageId()))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"goodbye world\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(List.of(), searchMessages("hello"));
+        Assertions.assertEquals(1, searchMessages("goodbye world").size());
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + posted.getMessageId()))
+                .DELETE()
+                .build();
+        webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(List.of(), searchMessages("goodbye"));
+    }
+
+    /**
+     * A query without any words is refused.
+     * 
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void searchWithoutWords() throws IOException, InterruptedException {
+        Assertions.assertEquals(400, search(" * ").statusCode());
+    }
+
+    /**
+     * Posting lists hold the same ids as a sorted set after random adds and removes.
+     */
+    @Test
+    public void postingListMatchesSortedSet() {
+        Random random = new Random(42);
+        TreeSet<Long> expected = new TreeSet<>();
+        PostingList list = PostingList.EMPTY;
+        for (int i = 0; i < 5000; i++){
+            long id = random.nextInt(2000) + (random.nextBoolean() ? 0 : 1L << 40);
+            if (random.nextInt(3) == 0){
+                expected.remove(id);
+                list = list.without(id);
+            }
+            else{
+                expected.add(id);
+                list = list.with(id);
+            }
+        }
+        Assertions.assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), list.toArray());
+    }
+}
@@ -0,0 +1,112 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+public class MetricsTest {
+    ApplicationContext app;
+    HttpClient webClient;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient for interacting locally
+     * on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private String scrape() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/actuator/prometheus"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return response.body();
+    }
+
+    private static void assertHasSample(String scrape, String metric, String... labels){
+        for (String line : scrape.split("\n")){
+            if (!line.startsWith(metric + "{")){
+                continue;
+            }
+            boolean matches = true;
+            for (String label : labels){
+                matches &= line.contains(label);
+            }
+            if (matches){
+                return;
+            }
+        }
+        Assertions.fail("Expected a " + metric + " sample with " + String.join(", ", labels));
+    }
+
+    /**
+     * Sending GET localhost:8080/messages/9999 twice, then GET localhost:8080/actuator/prometheus
+     *
+     * Expected Response:
+     *  Status Code: 200, with a latency histogram for the route, timers for the service and repository methods
+     *  it used, the cache lookups, the connection pool and the username filter
+     */
+    @Test
+    public void requestsAreMeasured() throws IOException, InterruptedException {
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .build();
+        webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+
+        String scrape = scrape();
+        assertHasSample(scrape, "http_server_requests_seconds_bucket", "uri=\"/messages/{messageId}\"", "status=\"200\"");
+        assertHasSample(scrape, "app_service_calls_seconds_bucket", "class=\"MessageService\"", "method=\"getMessageById\"");
+        assertHasSample(scrape, "spring_data_repository_invocations_seconds_count", "repository=\"MessageRepository\"");
+        assertHasSample(scrape, "cache_gets_total", "cache=\"message\"", "result=\"miss\"");
+        assertHasSample(scrape, "cache_gets_total", "cache=\"message\"", "result=\"hit\"");
+        assertHasSample(scrape, "hikaricp_connections_active");
+        assertHasSample(scrape, "app_username_filter_false_positive_rate", "source=\"expected\"");
+        assertHasSample(scrape, "app_username_filter_false_positive_rate", "source=\"observed\"");
+    }
+
+    /**
+     * Sending POST localhost:8080/login with a wrong password, then GET localhost:8080/actuator/prometheus
+     *
+     * Expected Response:
+     *  Status Code: 200, with the failed login timed under the exception it threw and the hashing task counted
+     */
+    @Test
+    public void failedLoginIsTaggedWithException() throws IOException, InterruptedException {
+        HttpRequest loginRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/login"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\": \"testuser1\", \"password\": \"wrong\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(loginRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(401, response.statusCode(), "Expected Status Code 401 - Actual Code was: " + response.statusCode());
+
+        String scrape = scrape();
+        assertHasSample(scrape, "app_service_calls_seconds_count", "class=\"AccountService\"", "method=\"verifyLogin\"",
+                "exception=\"AccountDoesNotExistException\"");
+        assertHasSample(scrape, "http_server_requests_seconds_count", "uri=\"/login\"", "status=\"401\"");
+        assertHasSample(scrape, "app_password_hashing_tasks_total", "result=\"completed\"");
+    }
+}
@@ -0,0 +1,152 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.exception.HashingUnavailableException;
+import com.example.repository.AccountRepository;
+import com.example.security.HashingExecutor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class PasswordHashingTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private int post(String path, String username, String password) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode();
+    }
+
+    /**
+     * A registered password is stored as a hash and still verifies at login.
+     * 
+     * Expected Response:
+     *  Status Code: 200 for the right password, 401 for a wrong one
+     */
+    @Test
+    public void registeredPasswordIsHashed() throws IOException, InterruptedException {
+        Assertions.assertEquals(200, post("/register", "hashed", "secret"));
+        AccountRepository repository = app.getBean(AccountRepository.class);
+        String stored = repository.findAccountByUsername("hashed").orElseThrow().getPassword();
+        Assertions.assertTrue(stored.startsWith("pbkdf2$"));
+
+        Assertions.assertEquals(200, post("/login", "hashed", "secret"));
+        Assertions.assertEquals(401, post("/login", "hashed", "wrong"));
+    }
+
+    /**
+     * A legacy plaintext password is replaced by a hash the first time it is used to log in.
+     * 
+     * Expected Response:
+     *  Status Code: 200 before and after the rehash
+     */
+    @Test
+    public void legacyPasswordRehashedOnLogin() throws IOException, InterruptedException {
+        AccountRepository repository = app.getBean(AccountRepository.class);
+        Assertions.assertEquals("password", repository.findById(9999L).orElseThrow().getPassword());
+
+        Assertions.assertEquals(200, post("/login", "testuser1", "password"));
+        Assertions.assertTrue(repository.findById(9999L).orElseThrow().getPassword().startsWith("pbkdf2$"));
+        Assertions.assertEquals(200, post("/login", "testuser1", "password"));
+    }
+
+    /**
+     * A legacy plaintext password shaped like a stored hash, but not a valid one, still verifies as plaintext.
+     * 
+     * Expected Response:
+     *  Status Code: 200 before and after the rehash
+     */
+    @Test
+    public void malformedHashTreatedAsLegacy() throws IOException, InterruptedException {
+        String plaintext = "pbkdf2$many$not base64$x";
+        app.getBean(JdbcTemplate.class).update("update account set password = ? where accountId = 9999", plaintext);
+
+        Assertions.assertEquals(200, post("/login", "testuser1", plaintext));
+        AccountRepository repository = app.getBean(AccountRepository.class);
+        Assertions.assertNotEquals(plaintext, repository.findById(9999L).orElseThrow().getPassword());
+        Assertions.assertEquals(200, post("/login", "testuser1", plaintext));
+        Assertions.assertEquals(401, post("/login", "testuser1", "password"));
+    }
+
+    /**
+     * With its one thread busy and its queue full, the pool refuses new work straight away.
+     */
+    @Test
+    public void saturatedPoolRejects() throws Exception {
+        HashingExecutor executor = new HashingExecutor(1, 1, Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try{
+            CompletableFuture<Void> running = CompletableFuture.runAsync(() -> run(executor, () -> {
+                started.countDown();
+                release.await();
+                return null;
+            }));
+            started.await();
+            CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> run(executor, () -> null));
+            while (executor.getQueueSize() == 0){
+                Thread.sleep(10);
+            }
+            Assertions.assertThrows(HashingUnavailableException.class, () -> executor.run(() -> null));
+            Assertions.assertEquals(1, executor.getRejectedCount());
+
+            release.countDown();
+            running.join();
+            queued.join();
+            Assertions.assertEquals(2, executor.getCompletedCount());
+        }
+        finally{
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static void run(HashingExecutor executor, Callable<Object> task){
+        try{
+            executor.run(task);
+        }
+        catch(HashingUnavailableException e){
+            throw new IllegalStateException(e);
+        }
+    }
+}
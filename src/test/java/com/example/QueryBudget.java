@@ -0,0 +1,40 @@
+package com.example;
+
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Assertions;
+
+import com.example.datasource.QueryCountFilter;
+
+/**
+ * Query-count budgets for tests. Start the app with QueryBudget.ARGS so that every response carries the number
+ * of statements its request ran, then check each response against the most its endpoint may run.
+ */
+public final class QueryBudget {
+    public static final String[] ARGS = new String[] {"--app.debug.query-count=true"};
+
+    private QueryBudget(){
+    }
+
+    /**
+     * @param response response from an app started with ARGS
+     * @return number of statements the request ran
+     */
+    public static int queryCount(HttpResponse<?> response){
+        String header = response.headers().firstValue(QueryCountFilter.QUERY_COUNT_HEADER).orElse(null);
+        Assertions.assertNotNull(header, "Expected an " + QueryCountFilter.QUERY_COUNT_HEADER + " header, is query count debug mode on?");
+        return Integer.parseInt(header);
+    }
+
+    /**
+     * Fail if the request ran more statements than its budget.
+     * @param maxQueries budget
+     * @param response response from an app started with ARGS
+     */
+    public static void assertWithin(int maxQueries, HttpResponse<?> response){
+        int queryCount = queryCount(response);
+        Assertions.assertTrue(queryCount <= maxQueries, "Expected at most " + maxQueries + " queries for "
+                + response.request().method() + " " + response.request().uri().getPath()
+                + " - Actual count was: " + queryCount);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.datasource.QueryCountFilter;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+
+/**
+ * Query-count budgets for every endpoint. A budget that starts failing means a change added statements to the
+ * endpoint; raise it only if the extra queries are intended.
+ */
+public class QueryBudgetTest {
+    ApplicationContext app;
+    HttpClient webClient;
+
+    /**
+     * Before every test, reset the database, restart the app in query count debug mode, and create a new
+     * webClient for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        app = SpringApplication.run(SocialMediaApp.class, QueryBudget.ARGS);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Registering an account, registering it again, then logging in
+     *
+     * Expected Response:
+     *  An insert after the username check, the username check alone for the duplicate, and one lookup to log in
+     *  plus the rehash of its seeded plain text password
+     */
+    @Test
+    public void accountBudgets() throws IOException, InterruptedException {
+        QueryBudget.assertWithin(2, send("POST", "/register", "{\"username\": \"budget\", \"password\": \"password\"}"));
+        QueryBudget.assertWithin(1, send("POST", "/register", "{\"username\": \"budget\", \"password\": \"password\"}"));
+        QueryBudget.assertWithin(2, send("POST", "/login", "{\"username\": \"testuser1\", \"password\": \"password\"}"));
+    }
+
+    /**
+     * Posting a message, a message from an unknown account, and a batch of three
+     *
+     * Expected Response:
+     *  At most one sequence call and one insert for each post, and one batched insert for the whole batch
+     */
+    @Test
+    public void postBudgets() throws IOException, InterruptedException {
+        QueryBudget.assertWithin(2, send("POST", "/messages", "{\"postedBy\":9999, \"messageText\": \"hello\", \"timePostedEpoch\": 1669947800}"));
+        QueryBudget.assertWithin(1, send("POST", "/messages", "{\"postedBy\":5050, \"messageText\": \"hello\", \"timePostedEpoch\": 1669947800}"));
+        QueryBudget.assertWithin(2, send("POST", "/messages/batch", "["
+                + "{\"postedBy\":9999, \"messageText\": \"a\", \"timePostedEpoch\": 1669947800},"
+                + "{\"postedBy\":9998, \"messageText\": \"b\", \"timePostedEpoch\": 1669947800},"
+                + "{\"postedBy\":9997, \"messageText\": \"c\", \"timePostedEpoch\": 1669947800}]"));
+    }
+
+    /**
+     * Reading messages through every read route, twice where the result is cached
+     *
+     * Expected Response:
+     *  One query per read, none for repeated reads served from the caches, and a second one for a last page,
+     *  which also reads the messages posted without a time
+     */
+    @Test
+    public void readBudgets() throws IOException, InterruptedException {
+        QueryBudget.assertWithin(1, send("GET", "/messages", null));
+        QueryBudget.assertWithin(1, send("GET", "/messages?limit=2", null));
+        QueryBudget.assertWithin(1, send("GET", "/messages/9997", null));
+        QueryBudget.assertWithin(0, send("GET", "/messages/9997", null));
+        QueryBudget.assertWithin(1, send("GET", "/messages/5050", null));
+        QueryBudget.assertWithin(1, send("GET", "/messages/search?q=test", null));
+        QueryBudget.assertWithin(2, send("GET", "/accounts/9999/messages", null));
+        QueryBudget.assertWithin(0, send("GET", "/accounts/9999/messages", null));
+        QueryBudget.assertWithin(2, send("GET", "/accounts/9999/messages?limit=2", null));
+    }
+
+    /**
+     * Updating and deleting messages, including ones that do not exist
+     *
+     * Expected Response:
+     *  The poster lookup and a single statement for each update and delete, with no entity loaded, and only the
+     *  lookup for ids that do not exist. A poster already in the message cache is not looked up
+     */
+    @Test
+    public void writeBudgets() throws IOException, InterruptedException {
+        QueryBudget.assertWithin(2, send("PATCH", "/messages/9997", "{\"messageText\": \"changed\"}"));
+        QueryBudget.assertWithin(1, send("PATCH", "/messages/5050", "{\"messageText\": \"changed\"}"));
+        QueryBudget.assertWithin(1, send("GET", "/messages/9997", null));
+        QueryBudget.assertWithin(1, send("DELETE", "/messages/9997", null));
+        QueryBudget.assertWithin(1, send("DELETE", "/messages/5050", null));
+        QueryBudget.assertWithin(2, send("DELETE", "/messages?ids=9996,5051", null));
+        QueryBudget.assertWithin(3, send("DELETE", "/accounts/9999/messages", null));
+    }
+
+    /**
+     * Following an account, reading the home feed twice, then unfollowing
+     *
+     * Expected Response:
+     *  The feed is built with a bounded number of queries, whatever the number of followees, and later reads
+     *  only load the messages
+     */
+    @Test
+    public void feedBudgets() throws IOException, InterruptedException {
+        QueryBudget.assertWithin(2, send("PUT", "/accounts/9998/following/9999", null));
+        QueryBudget.assertWithin(2, send("PUT", "/accounts/9998/following/9997", null));
+        QueryBudget.assertWithin(4, send("GET", "/accounts/9998/feed", null));
+        QueryBudget.assertWithin(1, send("GET", "/accounts/9998/feed", null));
+        QueryBudget.assertWithin(1, send("DELETE", "/accounts/9998/following/9999", null));
+    }
+
+    /**
+     * Sending GET localhost:8080/messages to an app started without query count debug mode
+     *
+     * Expected Response:
+     *  Status Code: 200 without the query count header, served by a data source that is not proxied
+     */
+    @Test
+    public void headerOnlyInDebugMode() throws IOException, InterruptedException {
+        SpringApplication.exit(app);
+        app = SpringApplication.run(SocialMediaApp.class);
+        Thread.sleep(500);
+        HttpResponse<String> response = send("GET", "/messages", null);
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        Assertions.assertTrue(response.headers().firstValue(QueryCountFilter.QUERY_COUNT_HEADER).isEmpty(),
+                "Expected no query count header outside debug mode");
+        Assertions.assertFalse(app.getBean("dataSource") instanceof ProxyDataSource,
+                "Expected the data source not to be proxied outside debug mode");
+    }
+}
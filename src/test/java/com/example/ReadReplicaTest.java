@@ -0,0 +1,123 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.h2.tools.RunScript;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Runs the app against a second in-memory H2 database acting as the replica. The replica is seeded with one
+ * message the primary does not have, which shows where each read was served from.
+ */
+public class ReadReplicaTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    ConfigurableApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the replica database and create a new webClient and ObjectMapper
+     * for interacting locally on the web. Each test starts the app with its own replica settings.
+     */
+    @BeforeEach
+    public void setUp() throws IOException, SQLException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "password");
+             Reader script = new InputStreamReader(getClass().getResourceAsStream("/data.sql"), StandardCharsets.UTF_8);
+             Statement statement = connection.createStatement()){
+            RunScript.execute(connection, script);
+            statement.execute("insert into message values (5000, 9999, 'replica only', 1669947700)");
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        if (app != null){
+            SpringApplication.exit(app);
+        }
+    }
+
+    private void start(String maxLag) throws InterruptedException {
+        String[] args = new String[] {"--app.datasource.replica.url=" + REPLICA_URL, "--app.datasource.replica.max-lag=" + maxLag};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    private List<Message> getAllMessages() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+    }
+
+    private Message postMessage() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"postedBy\":9999, \"messageText\": \"primary only\", \"timePostedEpoch\": 1669947800}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), Message.class);
+    }
+
+    /**
+     * With no lag tolerance reads go to the replica and writes to the primary.
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: messages in the replica, without the one just posted to the primary
+     */
+    @Test
+    public void readsServedByReplica() throws IOException, InterruptedException {
+        start("PT0S");
+        Assertions.assertTrue(getAllMessages().contains(new Message(5000L, 9999L, "replica only", 1669947700L)));
+
+        Message posted = postMessage();
+        List<Message> messages = getAllMessages();
+        Assertions.assertEquals(4, messages.size());
+        Assertions.assertFalse(messages.contains(posted));
+    }
+
+    /**
+     * Within the lag tolerance of a write, reads go to the primary and see the write.
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: messages in the primary, including the one just posted
+     */
+    @Test
+    public void readsAfterWriteServedByPrimary() throws IOException, InterruptedException {
+        start("PT1M");
+        Message posted = postMessage();
+        List<Message> messages = getAllMessages();
+        Assertions.assertTrue(messages.contains(posted));
+        Assertions.assertFalse(messages.contains(new Message(5000L, 9999L, "replica only", 1669947700L)));
+    }
+}
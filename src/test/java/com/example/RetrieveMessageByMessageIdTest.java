@@ -56,7 +56,7 @@ public class RetrieveMessageByMessageIdTest {
         HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
         int status = response.statusCode();
         Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
-        Message expectedResult = new Message(9999, 9999, "test message 1", 1669947792L);
+        Message expectedResult = new Message(9999L, 9999L, "test message 1", 1669947792L);
         Message actualResult = objectMapper.readValue(response.body().toString(), Message.class);
         Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
     }
@@ -0,0 +1,191 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class RetrieveMessagesPageTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending http requests to GET localhost:8080/messages?limit=2 and then following the returned cursor
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the seeded messages newest first, split over two pages
+     */
+    @Test
+    public void getMessagesPageFollowCursor() throws IOException, InterruptedException {
+        HttpRequest firstRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?limit=2"))
+                .build();
+        HttpResponse<String> firstResponse = webClient.send(firstRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, firstResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + firstResponse.statusCode());
+        List<Message> expectedFirstPage = new ArrayList<Message>();
+        expectedFirstPage.add(new Message(9999L, 9999L, "test message 1", 1669947792L));
+        expectedFirstPage.add(new Message(9997L, 9997L, "test message 2", 1669947792L));
+        List<Message> actualFirstPage = objectMapper.readValue(firstResponse.body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(expectedFirstPage, actualFirstPage, "Expected="+expectedFirstPage + ", Actual="+actualFirstPage);
+        Optional<String> cursor = firstResponse.headers().firstValue("X-Next-Cursor");
+        Assertions.assertTrue(cursor.isPresent(), "Expected a cursor for the next page");
+
+        HttpRequest secondRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?limit=2&after=" + cursor.get()))
+                .build();
+        HttpResponse<String> secondResponse = webClient.send(secondRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, secondResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + secondResponse.statusCode());
+        List<Message> expectedSecondPage = new ArrayList<Message>();
+        expectedSecondPage.add(new Message(9996L, 9996L, "test message 3", 1669947792L));
+        List<Message> actualSecondPage = objectMapper.readValue(secondResponse.body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(expectedSecondPage, actualSecondPage, "Expected="+expectedSecondPage + ", Actual="+actualSecondPage);
+        Assertions.assertFalse(secondResponse.headers().firstValue("X-Next-Cursor").isPresent(), "Expected no cursor after the last page");
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/accounts/9999/messages?limit=1
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the single message of the account and no next cursor
+     */
+    @Test
+    public void getMessagesPageByAccount() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9999/messages?limit=1"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        List<Message> expectedResult = new ArrayList<Message>();
+        expectedResult.add(new Message(9999L, 9999L, "test message 1", 1669947792L));
+        List<Message> actualResult = objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+        Assertions.assertFalse(response.headers().firstValue("X-Next-Cursor").isPresent(), "Expected no cursor after the last page");
+    }
+
+    /**
+     * Posting two messages without a timePostedEpoch, then following the cursors of GET
+     * localhost:8080/accounts/9999/messages?limit=2, and reading with since and until
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the messages without a time after the dated one, newest id first, each exactly once; excluded
+     *  by since and included by until
+     */
+    @Test
+    public void getMessagesPageWithoutTime() throws IOException, InterruptedException {
+        List<Message> expected = new ArrayList<Message>();
+        expected.add(new Message(9999L, 9999L, "test message 1", 1669947792L));
+        Message older = postUndated();
+        Message newer = postUndated();
+        expected.add(newer);
+        expected.add(older);
+
+        List<Message> actual = new ArrayList<Message>();
+        String path = "/accounts/9999/messages?limit=2";
+        while (path != null){
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080" + path))
+                    .build();
+            HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+            actual.addAll(objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){}));
+            Optional<String> cursor = response.headers().firstValue("X-Next-Cursor");
+            path = cursor.isPresent() ? "/accounts/9999/messages?limit=2&after=" + cursor.get() : null;
+        }
+        Assertions.assertEquals(expected, actual, "Expected="+expected + ", Actual="+actual);
+
+        HttpRequest sinceRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9999/messages?since=0"))
+                .build();
+        List<Message> sinceResult = objectMapper.readValue(webClient.send(sinceRequest, HttpResponse.BodyHandlers.ofString()).body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(expected.subList(0, 1), sinceResult, "Expected="+expected.subList(0, 1) + ", Actual="+sinceResult);
+
+        HttpRequest untilRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?until=1669947792"))
+                .build();
+        List<Message> untilResult = objectMapper.readValue(webClient.send(untilRequest, HttpResponse.BodyHandlers.ofString()).body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(expected.subList(1, 3), untilResult, "Expected="+expected.subList(1, 3) + ", Actual="+untilResult);
+    }
+
+    private Message postUndated() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"postedBy\":9999, \"messageText\": \"undated\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return objectMapper.readValue(response.body(), Message.class);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages with a cursor that was not issued by the server
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void getMessagesPageInvalidCursor() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?after=not-a-cursor"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(400, response.statusCode(), "Expected Status Code 400 - Actual Code was: " + response.statusCode());
+    }
+
+    /**
+     * Sending http requests to GET localhost:8080/messages, /accounts/9999/messages, /accounts/9999/feed and
+     * /messages/search with a limit below 1
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void getMessagesPageInvalidLimit() throws IOException, InterruptedException {
+        for (String path : List.of("/messages?limit=0", "/accounts/9999/messages?limit=-1", "/accounts/9999/feed?limit=0", "/messages/search?q=test&limit=0")){
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080" + path))
+                    .build();
+            HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(400, response.statusCode(), path + ": Expected Status Code 400 - Actual Code was: " + response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.entity.Message;
+import com.example.exception.InvalidCursorException;
+import com.example.service.MessageService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.ChainListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+
+public class RetrieveMessagesTimeRangeTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private List<Message> postMessages(long postedBy, long... times) throws IOException, InterruptedException {
+        List<Message> posted = new ArrayList<>();
+        for (long time : times){
+            HttpRequest postRequest = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/messages"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"postedBy\":" + postedBy + ", \"messageText\": \"at " + time + "\", \"timePostedEpoch\": " + time + "}"))
+                    .header("Content-Type", "application/json")
+                    .build();
+            posted.add(objectMapper.readValue(webClient.send(postRequest, HttpResponse.BodyHandlers.ofString()).body(), Message.class));
+        }
+        return posted;
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        return response;
+    }
+
+    private List<Message> getMessages(String path) throws IOException, InterruptedException {
+        return objectMapper.readValue(get(path).body(), new TypeReference<List<Message>>(){});
+    }
+
+    /**
+     * Sending http requests to GET localhost:8080/messages with since and until
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: messages with since <= timePostedEpoch < until, newest first, paged when limit is given
+     */
+    @Test
+    public void getMessagesInTimeRange() throws IOException, InterruptedException {
+        List<Message> posted = postMessages(9998L, 1000, 2000, 3000);
+
+        Assertions.assertEquals(List.of(posted.get(1)), getMessages("/messages?since=1500&until=3000"));
+        Assertions.assertEquals(List.of(posted.get(2), posted.get(1)), getMessages("/messages?since=2000&until=5000"));
+
+        HttpResponse<String> firstPage = get("/messages?until=5000&limit=2");
+        Assertions.assertEquals(List.of(posted.get(2), posted.get(1)),
+                objectMapper.readValue(firstPage.body(), new TypeReference<List<Message>>(){}));
+        String cursor = firstPage.headers().firstValue("X-Next-Cursor").orElseThrow();
+        Assertions.assertEquals(List.of(posted.get(0)), getMessages("/messages?until=5000&limit=2&after=" + cursor));
+    }
+
+    /**
+     * Sending http requests to GET localhost:8080/accounts/9998/messages with since and until
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the account's messages within the range, newest first
+     */
+    @Test
+    public void getAccountMessagesInTimeRange() throws IOException, InterruptedException {
+        List<Message> posted = postMessages(9998L, 1000, 2000, 3000);
+        postMessages(9997L, 2000);
+
+        Assertions.assertEquals(List.of(posted.get(1), posted.get(0)), getMessages("/accounts/9998/messages?until=2500"));
+        Assertions.assertEquals(List.of(posted.get(2)), getMessages("/accounts/9998/messages?since=2500"));
+    }
+
+    /**
+     * The time-range queries are answered from the time indexes rather than by scanning the table. The statements
+     * explained are the ones findMessagesBefore and findMessagesByPostedByBefore actually send, with their
+     * parameters, captured from the query count data source proxy.
+     */
+    @Test
+    public void timeRangeQueriesUseIndexes() throws InvalidCursorException {
+        SpringApplication.exit(app);
+        app = SpringApplication.run(SocialMediaApp.class, QueryBudget.ARGS);
+        MessageService messageService = app.getBean(MessageService.class);
+        JdbcTemplate jdbcTemplate = app.getBean(JdbcTemplate.class);
+
+        List<QueryInfo> allQueries = capture(() -> messageService.getMessagesPage(50, null, 1000L, 5000L));
+        Assertions.assertEquals(1, allQueries.size(), "Expected a single seek query");
+        String allPlan = explain(jdbcTemplate, allQueries.get(0));
+        Assertions.assertTrue(allPlan.contains("MESSAGE_TIME_IDX"), allPlan);
+
+        List<QueryInfo> accountQueries = capture(() -> messageService.getMessagesPageByAccount(9998L, 50, null, 1000L, 5000L));
+        Assertions.assertEquals(1, accountQueries.size(), "Expected a single seek query");
+        String accountPlan = explain(jdbcTemplate, accountQueries.get(0));
+        Assertions.assertTrue(accountPlan.contains("MESSAGE_POSTER_TIME_IDX"), accountPlan);
+    }
+
+    /**
+     * @return statements the current thread sent through the data source while running the action
+     */
+    private List<QueryInfo> capture(Callable<?> action) throws InvalidCursorException {
+        List<QueryInfo> captured = new CopyOnWriteArrayList<>();
+        Thread caller = Thread.currentThread();
+        ChainListener listeners = app.getBean("dataSource", ProxyDataSource.class).getProxyConfig().getQueryListener();
+        QueryExecutionListener listener = new QueryExecutionListener() {
+            @Override
+            public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList){
+            }
+
+            @Override
+            public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList){
+                if (Thread.currentThread() == caller){
+                    captured.addAll(queryInfoList);
+                }
+            }
+        };
+        listeners.addListener(listener);
+        try{
+            action.call();
+        }
+        catch(InvalidCursorException | RuntimeException e){
+            throw e;
+        }
+        catch(Exception e){
+            throw new IllegalStateException(e);
+        }
+        finally{
+            listeners.getListeners().remove(listener);
+        }
+        return captured;
+    }
+
+    private static String explain(JdbcTemplate jdbcTemplate, QueryInfo query){
+        Object[] parameters = query.getParametersList().get(0).stream()
+                .map(ParameterSetOperation::getArgs)
+                .sorted(Comparator.comparingInt(args -> (Integer) args[0]))
+                .map(args -> args[1])
+                .toArray();
+        return jdbcTemplate.queryForObject("explain " + query.getQuery(), String.class, parameters);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class SessionTokenTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private String login() throws IOException, InterruptedException {
+        HttpRequest loginRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/login"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"testuser1\",\"password\":\"password\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(loginRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        return response.headers().firstValue("X-Session-Token").orElseThrow();
+    }
+
+    private HttpResponse<String> postMessage(String token, String body) throws IOException, InterruptedException {
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .build();
+        return webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * A message posted with a session token is attributed to the logged in account.
+     * 
+     * Expected Response:
+     *  Status Code: 200 without postedBy, 403 when postedBy names another account
+     */
+    @Test
+    public void postMessageWithSessionToken() throws IOException, InterruptedException {
+        String token = login();
+
+        HttpResponse<String> response = postMessage(token, "{\"messageText\": \"hello\", \"timePostedEpoch\": 1669947792}");
+        Assertions.assertEquals(200, response.statusCode());
+        Message message = objectMapper.readValue(response.body(), Message.class);
+        Assertions.assertEquals(9999L, message.getPostedBy());
+
+        response = postMessage(token, "{\"postedBy\":9998, \"messageText\": \"hello\", \"timePostedEpoch\": 1669947792}");
+        Assertions.assertEquals(403, response.statusCode());
+    }
+
+    /**
+     * A message can only be updated through a session by the account that posted it.
+     * 
+     * Expected Response:
+     *  Status Code: 200 for the account's own message, 400 for a message posted by another account
+     */
+    @Test
+    public void updateOnlyOwnMessage() throws IOException, InterruptedException {
+        String token = login();
+        String body = "{\"messageText\": \"updated\"}";
+
+        HttpRequest ownRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .build();
+        Assertions.assertEquals(200, webClient.send(ownRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        HttpRequest otherRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9997"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .build();
+        Assertions.assertEquals(400, webClient.send(otherRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    /**
+     * Unknown tokens and tokens of ended sessions are refused.
+     * 
+     * Expected Response:
+     *  Status Code: 401
+     */
+    @Test
+    public void invalidAndRevokedTokensRejected() throws IOException, InterruptedException {
+        String body = "{\"messageText\": \"hello\", \"timePostedEpoch\": 1669947792}";
+        Assertions.assertEquals(401, postMessage("not-a-token", body).statusCode());
+
+        String token = login();
+        HttpRequest logoutRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/logout"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .header("Authorization", "Bearer " + token)
+                .build();
+        Assertions.assertEquals(200, webClient.send(logoutRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+        Assertions.assertEquals(401, postMessage(token, body).statusCode());
+    }
+}
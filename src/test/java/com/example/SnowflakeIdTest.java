@@ -0,0 +1,91 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.example.id.IdGenerator;
+import com.example.id.SnowflakeIdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class SnowflakeIdTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app with snowflake ids, and create a new webClient and
+     * ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {"--app.id.strategy=snowflake", "--app.id.node-id=7"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    /**
+     * Ids issued by one generator must be strictly increasing, even when many are issued in the same millisecond.
+     */
+    @Test
+    public void idsAreStrictlyIncreasing() {
+        IdGenerator generator = app.getBean(IdGenerator.class);
+        long previous = generator.nextId();
+        for (int i = 0; i < 100000; i++){
+            long next = generator.nextId();
+            Assertions.assertTrue(next > previous, "Expected " + next + " to be greater than " + previous);
+            previous = next;
+        }
+    }
+
+    /**
+     * Registering an account and posting a message through the API must use time-ordered application ids.
+     */
+    @Test
+    public void entitiesUseSnowflakeIds() throws IOException, InterruptedException {
+        HttpRequest registerRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"user\",\"password\":\"password\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        Account account = objectMapper.readValue(webClient.send(registerRequest, HttpResponse.BodyHandlers.ofString()).body(), Account.class);
+
+        String json = "{\"postedBy\":" + account.getAccountId() + ",\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        Message message = objectMapper.readValue(response.body(), Message.class);
+        Assertions.assertEquals("\"" + message.getMessageId() + "\"", objectMapper.readTree(response.body()).get("messageId").toString(),
+                "Expected the id to be written as a string so JavaScript clients keep every digit");
+
+        Assertions.assertTrue(message.getMessageId() > account.getAccountId(), "Expected ids to increase over time");
+        Instant issuedAt = SnowflakeIdGenerator.timestampOf(message.getMessageId());
+        Assertions.assertTrue(Duration.between(issuedAt, Instant.now()).abs().toMinutes() < 1, "Expected the id to encode the current time");
+    }
+}
@@ -131,7 +131,7 @@ public class SpringTest {
         Method[] repositoryMethods = repository.getClass().getMethods();
         Method saveMethod = null;
         Method findAllMethod = null;
-        int expectedPostedBy = 9999;
+        long expectedPostedBy = 9999;
         String expectedText = "ted test 1";
         long expectedTimePosted = 999999999999L;
         Message testMessage = new Message(expectedPostedBy, expectedText, expectedTimePosted);
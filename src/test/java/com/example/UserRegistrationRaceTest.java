@@ -0,0 +1,73 @@
+package com.example;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.repository.AccountRepository;
+
+public class UserRegistrationRaceTest {
+    ApplicationContext app;
+    HttpClient webClient;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient for interacting locally
+     * on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending many concurrent http requests to POST localhost:8080/register with the same username
+     *
+     * Expected Response:
+     *  Exactly one Status Code 200, every other request Status Code 409, and a single account persisted
+     */
+    @Test
+    public void concurrentRegistrationsOfSameUsername() {
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"user\",\"password\":\"password\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 16; i++){
+            responses.add(webClient.sendAsync(postRequest, HttpResponse.BodyHandlers.ofString()));
+        }
+        int created = 0;
+        for (CompletableFuture<HttpResponse<String>> future : responses){
+            int status = future.join().statusCode();
+            if (status == 200){
+                created++;
+            }
+            else {
+                Assertions.assertEquals(409, status, "Expected Status Code 409 - Actual Code was: " + status);
+            }
+        }
+        Assertions.assertEquals(1, created, "Expected exactly one registration to succeed");
+        Assertions.assertEquals(5, app.getBean(AccountRepository.class).count());
+    }
+}
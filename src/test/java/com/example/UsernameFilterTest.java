@@ -0,0 +1,150 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.cache.UsernameFilter;
+import com.example.util.ScalableBloomFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class UsernameFilterTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private HttpResponse<String> login(String username, String password) throws IOException, InterruptedException {
+        HttpRequest loginRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/login"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        return webClient.send(loginRequest, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * A login for an unknown username is rejected by the filter, and a newly registered username is let through.
+     * 
+     * Expected Response:
+     *  Status Code: 401 for the unknown username, then 200 once it is registered
+     */
+    @Test
+    public void unknownUsernameRejectedByFilter() throws IOException, InterruptedException {
+        UsernameFilter filter = app.getBean(UsernameFilter.class);
+        Assertions.assertEquals(4, filter.size());
+        long rejectedBefore = filter.getRejectedCount();
+
+        Assertions.assertEquals(401, login("nobody-here", "password").statusCode());
+        Assertions.assertEquals(rejectedBefore + 1, filter.getRejectedCount());
+
+        HttpRequest registerRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"nobody-here\",\"password\":\"password\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(200, webClient.send(registerRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+        Assertions.assertEquals(200, login("nobody-here", "password").statusCode());
+        Assertions.assertEquals(401, login("nobody-here", "wrong").statusCode());
+    }
+
+    /**
+     * Rebuilding keeps every username, including ones registered since startup.
+     */
+    @Test
+    public void rebuildKeepsRegisteredUsernames() throws IOException, InterruptedException {
+        HttpRequest registerRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"late\",\"password\":\"password\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(registerRequest, HttpResponse.BodyHandlers.ofString());
+
+        UsernameFilter filter = app.getBean(UsernameFilter.class);
+        filter.rebuild();
+        Assertions.assertEquals(5, filter.size());
+        Assertions.assertTrue(filter.mightExist("late"));
+        Assertions.assertTrue(filter.mightExist("testuser1"));
+        Assertions.assertEquals(200, login("testuser1", "password").statusCode());
+    }
+
+    /**
+     * Registrations that grow the filter to its maximum number of stages rebuild it in the background.
+     * 
+     * Expected Response:
+     *  Status Code: 200 for the registration and the login, with the filter rebuilt into a single stage
+     */
+    @Test
+    public void growthTriggersRebuild() throws IOException, InterruptedException {
+        SpringApplication.exit(app);
+        app = SpringApplication.run(SocialMediaApp.class, "--app.cache.usernames.expected-size=1", "--app.cache.usernames.max-stages=2");
+        Thread.sleep(500);
+        UsernameFilter filter = app.getBean(UsernameFilter.class);
+        Assertions.assertEquals(1, filter.getRebuildCount());
+        Assertions.assertEquals(1, filter.getStageCount());
+
+        HttpRequest registerRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"grower\",\"password\":\"password\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(200, webClient.send(registerRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+        for (int attempt = 0; attempt < 50 && filter.getRebuildCount() < 2; attempt++){
+            Thread.sleep(100);
+        }
+        Assertions.assertEquals(2, filter.getRebuildCount());
+        Assertions.assertEquals(1, filter.getStageCount());
+        Assertions.assertEquals(5, filter.size());
+        Assertions.assertEquals(200, login("grower", "password").statusCode());
+    }
+
+    /**
+     * The filter grows past its initial capacity without false negatives and keeps close to its target rate.
+     */
+    @Test
+    public void scalableFilterGrows() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+        for (int i = 0; i < 20000; i++){
+            filter.add("user" + i);
+        }
+        Assertions.assertTrue(filter.stageCount() > 1);
+        for (int i = 0; i < 20000; i++){
+            Assertions.assertTrue(filter.mightContain("user" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 20000; i++){
+            if (filter.mightContain("other" + i)){
+                falsePositives++;
+            }
+        }
+        Assertions.assertTrue(falsePositives < 20000 * 0.02 * 2);
+    }
+}
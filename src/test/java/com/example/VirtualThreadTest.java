@@ -0,0 +1,77 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIf;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+
+import com.example.util.VirtualThreads;
+
+public class VirtualThreadTest {
+    ApplicationContext app;
+    HttpClient webClient = HttpClient.newHttpClient();
+
+    static boolean virtualThreadsSupported(){
+        return VirtualThreads.isSupported();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        if (app != null){
+            SpringApplication.exit(app);
+        }
+    }
+
+    /**
+     * With the virtual-threads profile Tomcat hands every request to a new virtual thread.
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     */
+    @Test
+    @EnabledIf("virtualThreadsSupported")
+    public void requestsRunOnVirtualThreads() throws IOException, InterruptedException {
+        app = SpringApplication.run(SocialMediaApp.class, "--spring.profiles.active=virtual-threads");
+        Thread.sleep(500);
+        TomcatWebServer webServer = (TomcatWebServer) ((ServletWebServerApplicationContext) app).getWebServer();
+        Executor executor = webServer.getTomcat().getConnector().getProtocolHandler().getExecutor();
+        CompletableFuture<String> threadName = new CompletableFuture<>();
+        executor.execute(() -> threadName.complete(Thread.currentThread().getName()));
+        Assertions.assertTrue(threadName.join().startsWith("http-virtual-"));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .build();
+        Assertions.assertEquals(200, webClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    /**
+     * Asking for virtual threads on a JDK without them fails at startup rather than silently using platform
+     * threads.
+     */
+    @Test
+    @DisabledIf("virtualThreadsSupported")
+    public void startupFailsWithoutVirtualThreads() {
+        Exception e = Assertions.assertThrows(Exception.class,
+                () -> app = SpringApplication.run(SocialMediaApp.class, "--app.threads.virtual=true"));
+        Throwable cause = e;
+        while (cause.getCause() != null){
+            cause = cause.getCause();
+        }
+        Assertions.assertTrue(cause.getMessage().startsWith("Virtual threads need Java 21"));
+    }
+}